@@ -3,13 +3,17 @@ import argparser.CmdLineExceptions;
 import argparser.Option;
 import argparser.Option.OptionBuilder;
 import argparser.Options;
+import handler.BatchHandler;
 import handler.FileHandler;
 import handler.ThreadHandler;
 import handler.ThresholdHandler;
+import metrics.MetricsReporter;
+import pool.Job;
 import pool.ThreadPool;
-import timer.Timer;
+import timer.PhaseProfiler;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -18,17 +22,35 @@ import java.util.Map;
 public class PerformanceDataProcessor {
 
   private static Options options;
-  private static final String CSV_REGEX = "^(\\\\|\\/)?([\\w-]+(\\\\|\\/))*[\\w-]+\\.csv$";
+  private static final String CSV_REGEX = "^(\\\\|\\/)?([\\w-]+(\\\\|\\/))*[\\w-]+\\.csv(\\.gz)?$";
   private static final String NUM_REGEX = "^[0-9]*$";
+  private static final String TRANSPORT_REGEX = "^(queue|ring)$";
+  private static final String DIGITS_REGEX = "^[1-5]$";
+  private static final String JSON_REGEX = "^(\\\\|\\/)?([\\w-]+(\\\\|\\/))*[\\w-]+\\.json$";
+  private static final String EXECUTOR_REGEX =
+      "^(produce|consume|write|render)=(cached|fixed|fork-join|virtual)(:[0-9]+)?"
+          + "(,(produce|consume|write|render)=(cached|fixed|fork-join|virtual)(:[0-9]+)?)*$";
+  private static final String ENGINE_REGEX = "^(pipeline|mapreduce)$";
+  private static final String RUNS_REGEX = "^[\\w\\-.*?\\[\\]{},\\\\/]+$";
 
   static {
     options = new Options();
     options.addOption(
-        new OptionBuilder("--POST").setRequired().hasSubOption().setSubOptionRegex(CSV_REGEX)
-            .setDesc("Required argument that gives a CSV file contains POST requests.").build());
+        new OptionBuilder("--POST").setDependent(new String[]{"--GET"})
+            .setExclusive(new String[]{"--runs"}).hasSubOption().setSubOptionRegex(CSV_REGEX)
+            .setDesc("Required argument that gives a CSV file contains POST requests, "
+                + "plain or gzip compressed, unless --runs is given.").build());
     options.addOption(
-        new OptionBuilder("--GET").setRequired().hasSubOption().setSubOptionRegex(CSV_REGEX)
-            .setDesc("Required argument that gives a CSV file contains GET requests.").build());
+        new OptionBuilder("--GET").setDependent(new String[]{"--POST"})
+            .setExclusive(new String[]{"--runs"}).hasSubOption().setSubOptionRegex(CSV_REGEX)
+            .setDesc("Required argument that gives a CSV file contains GET requests, "
+                + "plain or gzip compressed, unless --runs is given.").build());
+    options.addOption(
+        new OptionBuilder("--runs").setExclusive(new String[]{"--POST", "--GET"}).hasSubOption()
+            .setSubOptionRegex(RUNS_REGEX).setDesc(
+            "Optional argument that gives a directory or a glob such as filedir/*POSTraw.csv "
+                + "and analyses every POST/GET raw file pair it finds in one run.").build());
+    options.addOneOrMoreList(Arrays.asList("--POST", "--runs"));
     options.addOption(new OptionBuilder("--threshold").hasSubOption().setSubOptionRegex(NUM_REGEX)
         .setDesc(
             "Optional argument that gives an integer value identifies the PEAK timer load period.")
@@ -42,15 +64,104 @@ public class PerformanceDataProcessor {
             .hasSubOption().setSubOptionRegex(NUM_REGEX).setDesc(
             "Optional argument that splits the original file "
                 + "into several segments and opens multiple producer threads.").build());
+    options.addOption(
+        new OptionBuilder("--chunk-mb").setDependent(new String[]{"--multireader"})
+            .hasSubOption().setSubOptionRegex(NUM_REGEX).setDesc(
+            "Optional argument that lets the --multireader producers claim line-aligned chunks "
+                + "of the given megabytes (4-64 works well) instead of one fixed range each.")
+            .build());
     options.addOption(new OptionBuilder("--combo-consumer").setDesc(
         "Optional argument that use one queue and combo consumers to generate throughput "
             + "and latency buckets").build());
+    options.addOption(new OptionBuilder("--multicast-consumer")
+        .setExclusive(new String[]{"--combo-consumer"}).setDesc(
+            "Optional argument that replaces the two queues of the default consumers with one "
+                + "queue whose consumers parse each line once and broadcast the record to a "
+                + "throughput sink and a latency sink.").build());
+    options.addOption(new OptionBuilder("--mmap").setDesc(
+        "Optional argument that reads the input files through memory-mapped regions.").build());
+    options.addOption(new OptionBuilder("--dense-buckets").setDesc(
+        "Optional argument that keeps per-second throughput in primitive arrays "
+            + "instead of a skip-list map.").build());
+    options.addOption(new OptionBuilder("--local-aggregation").setDesc(
+        "Optional argument that lets every consumer aggregate privately and merge its buckets "
+            + "when it stops.").build());
+    options.addOption(new OptionBuilder("--batch").hasSubOption().setSubOptionRegex(NUM_REGEX)
+        .setDesc("Optional argument that lets producers parse lines and hand records to "
+            + "consumers in batches of the given size.").build());
+    options.addOption(new OptionBuilder("--transport").hasSubOption()
+        .setSubOptionRegex(TRANSPORT_REGEX).setDesc(
+            "Optional argument that selects the handoff between producers and consumers: "
+                + "queue (default) or ring.").build());
+    options.addOption(new OptionBuilder("--latency-precision").hasSubOption()
+        .setSubOptionRegex(DIGITS_REGEX).setDesc(
+            "Optional argument that counts latencies in a fixed-size log-linear histogram "
+                + "keeping the given significant digits (1-5).").build());
+    options.addOption(new OptionBuilder("--second-percentiles").setDesc(
+        "Optional argument that sketches the latencies of every second and adds its p50, p99 "
+            + "and max to the per-second rows. Consumers then aggregate locally as with "
+            + "--local-aggregation, except with --follow.").build());
+    options.addOption(new OptionBuilder("--cache").setDesc(
+        "Optional argument that writes a binary columnar sidecar of every input file on the "
+            + "first run and reads it instead of the CSV on later runs. Timestamps are cached as "
+            + "int millisecond offsets, so a file spanning more than about 24.8 days is not "
+            + "cached.").build());
+    options.addOption(new OptionBuilder("--follow").setExclusive(
+        new String[]{"--runs", "--multireader", "--split-multireader", "--mmap",
+            "--local-aggregation", "--cache"}).hasSubOption().setSubOptionRegex(NUM_REGEX).setDesc(
+        "Optional argument that tails the growing input files, appends closed seconds to live "
+            + "csv files and stops after the given seconds without new data.").build());
+    options.addOption(new OptionBuilder("--metrics").hasSubOption().setSubOptionRegex(NUM_REGEX)
+        .setDesc("Optional argument that publishes pipeline metrics of every input file as JMX "
+            + "MBeans and dumps them every given seconds, or once at the end for 0.").build());
+    options.addOption(new OptionBuilder("--metrics-csv").setDependent(new String[]{"--metrics"})
+        .setDesc("Optional argument that dumps the metrics to a metrics csv file next to every "
+            + "input file instead of the console.").build());
+    options.addOption(new OptionBuilder("--consumers").hasSubOption().setSubOptionRegex(NUM_REGEX)
+        .setDesc("Optional argument that gives the consumer threads per queue instead of "
+            + "deriving them from the available processors.").build());
+    options.addOption(new OptionBuilder("--executors").hasSubOption()
+        .setSubOptionRegex(EXECUTOR_REGEX).setDesc(
+            "Optional argument that gives the executor of each stage as stage=backend[:threads], "
+                + "with stages produce, consume, write and render and backends cached, fixed, "
+                + "fork-join and virtual (default produce=fixed,consume=fixed,write=virtual,"
+                + "render=fixed). Producer and consumer executors are never narrower than the "
+                + "threads in flight.").build());
+    options.addOption(new OptionBuilder("--engine").hasSubOption().setSubOptionRegex(ENGINE_REGEX)
+        .setDesc("Optional argument that gives the ingestion engine: pipeline, with producer and "
+            + "consumer threads, or mapreduce, with fork/join tasks that aggregate line-aligned "
+            + "ranges in place and merge the results (default pipeline). With mapreduce, "
+            + "--multireader gives the number of ranges.").build());
+    options.addOption(new OptionBuilder("--profile").hasSubOption().setSubOptionRegex(JSON_REGEX)
+        .setDesc("Optional argument that prints the wall clock and CPU time of every phase of "
+            + "every input file at the end and writes them to the given json file.").build());
     options.addExample("--post post_test.csv --get get_test.csv");
     options.addExample("--post post_test.csv --get get_test.csv --threshold 5000");
     options.addExample("--post post_test.csv --get get_test.csv --multireader 4");
     options.addExample("--post post_test.csv --get get_test.csv --multireader 4 --combo-consumer");
     options.addExample(
         "--post post_test.csv --get get_test.csv --threshold 5000 --split-multireader 4");
+    options.addExample("--post post_test.csv --get get_test.csv --multireader 4 --mmap");
+    options.addExample("--post post_test.csv --get get_test.csv --multireader 8 --chunk-mb 16");
+    options.addExample(
+        "--post post_test.csv --get get_test.csv --combo-consumer --dense-buckets "
+            + "--local-aggregation");
+    options.addExample("--post post_test.csv --get get_test.csv --mmap --batch 8192");
+    options.addExample("--post post_test.csv --get get_test.csv --multireader 4 --transport ring");
+    options.addExample("--post post_test.csv --get get_test.csv --multireader 4 "
+        + "--multicast-consumer --local-aggregation");
+    options.addExample("--runs filedir/*POSTraw.csv --threshold 5000 --combo-consumer");
+    options.addExample("--post post_test.csv --get get_test.csv --follow 30 --batch 1024");
+    options.addExample("--post post_test.csv --get get_test.csv --latency-precision 3");
+    options.addExample(
+        "--post post_test.csv --get get_test.csv --threshold 5000 --second-percentiles");
+    options.addExample("--post post_test.csv --get get_test.csv --multireader 4 --cache");
+    options.addExample("--post post_test.csv --get get_test.csv --multireader 4 --metrics 1");
+    options.addExample("--post post_test.csv --get get_test.csv --mmap --profile profile.json");
+    options.addExample("--post post_test.csv --get get_test.csv --engine mapreduce");
+    options.addExample("--post post_test.csv --get get_test.csv --multireader 4 --consumers 2 "
+        + "--executors consume=fork-join,write=virtual,render=fixed:2");
+    options.addExample("--post post_test.csv.gz --get get_test.csv.gz --multireader 4");
     options.generateUsage();
   }
 
@@ -61,22 +172,30 @@ public class PerformanceDataProcessor {
    */
   public static void main(String[] args) {
     ThreadPool.poolReset();
-    Timer.reset();
+    PhaseProfiler.reset();
     ArgParser parser = new ArgParser(args, options);
+    BatchHandler batchHandler = new BatchHandler();
     ThreadHandler threadHandler = new ThreadHandler();
     FileHandler fileHandler = new FileHandler();
     ThresholdHandler thresholdHandler = new ThresholdHandler();
     try {
       Map<String, Option> validOptions = parser.parse();
+      batchHandler.setNextHandler(threadHandler);
       threadHandler.setNextHandler(fileHandler);
       fileHandler.setNextHandler(thresholdHandler);
-      threadHandler.handleRequest(validOptions);
+      batchHandler.handleRequest(validOptions);
     } catch (CmdLineExceptions ex) {
       System.out.println(ex.getMessage());
       System.out.println(options.getUsage());
     } catch (IOException ex) {
       System.out.println(ex.getMessage());
     }
-    Timer.stop();
+    ThreadPool.stop();
+    ThreadPool.sleep();
+    MetricsReporter.stop();
+    PhaseProfiler.stop();
+    if (Job.getFailedJobs() > 0) {
+      System.exit(1);
+    }
   }
 }
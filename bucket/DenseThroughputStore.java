@@ -0,0 +1,209 @@
+package bucket;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The type DenseThroughputStore that keeps the count and latency sum of every second in primitive
+ * AtomicLongArray chunks instead of one bucket object per second. A chunk covers CHUNK_SECONDS
+ * consecutive seconds and is found by its offset from the first chunk, so a request costs one
+ * array lookup and two atomic adds. Chunks are allocated the first time one of their seconds is
+ * used, and the chunk directory grows in either direction under a lock.
+ */
+public class DenseThroughputStore implements ThroughputStore {
+
+  private static final int CHUNK_SECONDS = 4096;
+  private volatile Directory directory;
+  private boolean sketched;
+
+  /**
+   * Instantiates a new DenseThroughputStore object.
+   */
+  public DenseThroughputStore() {
+    this(false);
+  }
+
+  /**
+   * Instantiates a new DenseThroughputStore object.
+   *
+   * @param sketched true to sketch the latency distribution of every second
+   */
+  public DenseThroughputStore(boolean sketched) {
+    this.directory = new Directory(0, new Chunk[0]);
+    this.sketched = sketched;
+  }
+
+  /**
+   * Add a new request to the given second.
+   *
+   * @param second the second
+   * @param latency the latency
+   */
+  @Override
+  public void add(long second, int latency) {
+    Chunk chunk = chunkOf(Math.floorDiv(second, CHUNK_SECONDS));
+    int index = (int) Math.floorMod(second, CHUNK_SECONDS);
+    if (sketched) {
+      chunk.sketchOf(index).add(latency);
+    }
+    chunk.totalLatencies.getAndAdd(index, latency);
+    chunk.counts.getAndIncrement(index);
+  }
+
+  /**
+   * Add several requests to the given second at once.
+   *
+   * @param second the second
+   * @param count the count of requests
+   * @param totalLatency the latency sum of the requests
+   */
+  @Override
+  public void add(long second, long count, long totalLatency) {
+    Chunk chunk = chunkOf(Math.floorDiv(second, CHUNK_SECONDS));
+    int index = (int) Math.floorMod(second, CHUNK_SECONDS);
+    chunk.totalLatencies.getAndAdd(index, totalLatency);
+    chunk.counts.getAndAdd(index, count);
+  }
+
+  /**
+   * Add the latencies of a sketch to the given second.
+   *
+   * @param second the second
+   * @param sketch the sketch
+   */
+  @Override
+  public void add(long second, LatencySketch sketch) {
+    if (sketched) {
+      Chunk chunk = chunkOf(Math.floorDiv(second, CHUNK_SECONDS));
+      chunk.sketchOf((int) Math.floorMod(second, CHUNK_SECONDS)).merge(sketch);
+    }
+  }
+
+  /**
+   * Tells whether the buckets sketch the latency distribution of every second.
+   *
+   * @return true if the buckets carry sketches
+   */
+  @Override
+  public boolean hasSketches() {
+    return sketched;
+  }
+
+  /**
+   * Gets a sorted snapshot of the non-empty seconds as ThroughputBuckets.
+   *
+   * @return the buckets keyed by second
+   */
+  @Override
+  public NavigableMap<Long, ThroughputBucket> getBuckets() {
+    NavigableMap<Long, ThroughputBucket> buckets = new TreeMap<>();
+    Directory current = directory;
+    for (int i = 0; i < current.chunks.length; i++) {
+      Chunk chunk = current.chunks[i];
+      if (chunk == null) {
+        continue;
+      }
+      long base = (current.first + i) * CHUNK_SECONDS;
+      for (int j = 0; j < CHUNK_SECONDS; j++) {
+        long count = chunk.counts.get(j);
+        if (count != 0) {
+          LatencySketch sketch = chunk.sketches.get(j);
+          buckets.put(base + j, new ThroughputBucket(base + j, count,
+              chunk.totalLatencies.get(j), sketch == null ? null : sketch.copy()));
+        }
+      }
+    }
+    return buckets;
+  }
+
+  /**
+   * Helper function that finds the chunk with the given number, growing the directory if needed.
+   *
+   * @param number the chunk number
+   * @return the chunk
+   */
+  private Chunk chunkOf(long number) {
+    Directory current = directory;
+    long offset = number - current.first;
+    if (offset >= 0 && offset < current.chunks.length) {
+      Chunk chunk = current.chunks[(int) offset];
+      if (chunk != null) {
+        return chunk;
+      }
+    }
+    return grow(number);
+  }
+
+  /**
+   * Helper function that publishes a new directory covering the chunk number with the chunk
+   * allocated. Existing chunks are shared with the new directory, so no count is copied.
+   *
+   * @param number the chunk number
+   * @return the chunk
+   */
+  private synchronized Chunk grow(long number) {
+    Directory current = directory;
+    if (current.chunks.length == 0) {
+      Chunk chunk = new Chunk();
+      directory = new Directory(number, new Chunk[]{chunk});
+      return chunk;
+    }
+    long first = Math.min(current.first, number);
+    long last = Math.max(current.first + current.chunks.length - 1, number);
+    Chunk[] chunks = current.chunks;
+    if (first != current.first || last - first + 1 != chunks.length) {
+      chunks = new Chunk[(int) (last - first + 1)];
+      System.arraycopy(current.chunks, 0, chunks, (int) (current.first - first),
+          current.chunks.length);
+    }
+    Chunk chunk = chunks[(int) (number - first)];
+    if (chunk == null) {
+      chunk = new Chunk();
+      chunks[(int) (number - first)] = chunk;
+    }
+    directory = new Directory(first, chunks);
+    return chunk;
+  }
+
+  @Override
+  public String toString() {
+    return "DenseThroughputStore{" + "chunks=" + directory.chunks.length + '}';
+  }
+
+  /**
+   * The immutable view of the chunks from the first chunk number onwards.
+   */
+  private static class Directory {
+
+    private final long first;
+    private final Chunk[] chunks;
+
+    private Directory(long first, Chunk[] chunks) {
+      this.first = first;
+      this.chunks = chunks;
+    }
+  }
+
+  /**
+   * The counts, latency sums and sketches of CHUNK_SECONDS consecutive seconds. Sketches are only
+   * created for the seconds that get one.
+   */
+  private static class Chunk {
+
+    private final AtomicLongArray counts = new AtomicLongArray(CHUNK_SECONDS);
+    private final AtomicLongArray totalLatencies = new AtomicLongArray(CHUNK_SECONDS);
+    private final AtomicReferenceArray<LatencySketch> sketches =
+        new AtomicReferenceArray<>(CHUNK_SECONDS);
+
+    private LatencySketch sketchOf(int index) {
+      LatencySketch sketch = sketches.get(index);
+      if (sketch == null) {
+        sketches.compareAndSet(index, null, new LatencySketch());
+        sketch = sketches.get(index);
+      }
+      return sketch;
+    }
+  }
+}
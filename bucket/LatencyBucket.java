@@ -29,6 +29,15 @@ public class LatencyBucket implements BucketAddable {
     count.getAndIncrement();
   }
 
+  /**
+   * Add several requests at once and update the count.
+   *
+   * @param count the count of requests
+   */
+  public void add(long count) {
+    this.count.getAndAdd(count);
+  }
+
   /**
    * Gets the latency of the bucket.
    *
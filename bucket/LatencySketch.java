@@ -0,0 +1,171 @@
+package bucket;
+
+/**
+ * The type LatencySketch that estimates latency quantiles in the way of DDSketch. Latencies are
+ * counted in logarithmic bins whose width grows by GAMMA, so any quantile is returned within
+ * RELATIVE_ACCURACY of the real latency. The bins form one contiguous int window of at most
+ * MAX_BINS entries; when a wider spread arrives the lowest bins are folded together, which only
+ * affects the lowest quantiles. Together with the exact maximum this keeps a sketch to a few
+ * hundred bytes, and two sketches merge by adding their bins.
+ */
+public class LatencySketch {
+
+  /**
+   * The relative accuracy of the quantiles.
+   */
+  public static final double RELATIVE_ACCURACY = 0.05;
+  private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+  private static final double LOG_GAMMA = Math.log(GAMMA);
+  private static final int MAX_BINS = 96;
+  private int offset;
+  private int[] bins;
+  private long zeroCount;
+  private long count;
+  private int max;
+
+  /**
+   * Instantiates a new empty LatencySketch object.
+   */
+  public LatencySketch() {
+    this.bins = new int[0];
+  }
+
+  /**
+   * Add a new request with the given latency. Latencies below 1 are counted as 0.
+   *
+   * @param latency the latency
+   */
+  public synchronized void add(int latency) {
+    count++;
+    max = Math.max(max, latency);
+    if (latency < 1) {
+      zeroCount++;
+      return;
+    }
+    int bin = binOf(indexOf(latency));
+    bins[bin]++;
+  }
+
+  /**
+   * Add every latency of another sketch to this one.
+   *
+   * @param other the other sketch
+   */
+  public void merge(LatencySketch other) {
+    LatencySketch copy = other.copy();
+    synchronized (this) {
+      count += copy.count;
+      zeroCount += copy.zeroCount;
+      max = Math.max(max, copy.max);
+      for (int i = 0; i < copy.bins.length; i++) {
+        if (copy.bins[i] != 0) {
+          int bin = binOf(copy.offset + i);
+          bins[bin] += copy.bins[i];
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets a copy of the sketch.
+   *
+   * @return the copy
+   */
+  public synchronized LatencySketch copy() {
+    LatencySketch copy = new LatencySketch();
+    copy.offset = offset;
+    copy.bins = bins.clone();
+    copy.zeroCount = zeroCount;
+    copy.count = count;
+    copy.max = max;
+    return copy;
+  }
+
+  /**
+   * Gets the estimated latency at a quantile, capped at the exact maximum.
+   *
+   * @param quantile the quantile, from 0 to 1
+   * @return the latency, or 0 if the sketch is empty
+   */
+  public synchronized long getValueAtQuantile(double quantile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long seen = zeroCount;
+    if (seen >= rank) {
+      return 0;
+    }
+    for (int i = 0; i < bins.length; i++) {
+      seen += bins[i];
+      if (seen >= rank) {
+        return Math.min(max, Math.round(2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1)));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Gets the exact largest latency added.
+   *
+   * @return the largest latency
+   */
+  public synchronized long getMax() {
+    return max;
+  }
+
+  /**
+   * Gets the count of requests added.
+   *
+   * @return the count
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  /**
+   * Helper function that finds the logarithmic index of a positive latency.
+   *
+   * @param latency the latency
+   * @return the index
+   */
+  private static int indexOf(int latency) {
+    return (int) Math.ceil(Math.log(latency) / LOG_GAMMA);
+  }
+
+  /**
+   * Helper function that finds the bin of an index, widening the window to cover it. Indexes
+   * below a full window are folded into its lowest bin.
+   *
+   * @param index the index
+   * @return the position in the bins
+   */
+  private int binOf(int index) {
+    if (bins.length == 0) {
+      offset = index;
+      bins = new int[1];
+      return 0;
+    }
+    int last = offset + bins.length - 1;
+    if (index >= offset && index <= last) {
+      return index - offset;
+    }
+    int newOffset = Math.min(offset, index);
+    int newLast = Math.max(last, index);
+    if (newLast - newOffset + 1 > MAX_BINS) {
+      newOffset = newLast - MAX_BINS + 1;
+    }
+    int[] grown = new int[newLast - newOffset + 1];
+    for (int i = 0; i < bins.length; i++) {
+      grown[Math.max(0, offset + i - newOffset)] += bins[i];
+    }
+    bins = grown;
+    offset = newOffset;
+    return Math.max(0, index - offset);
+  }
+
+  @Override
+  public String toString() {
+    return "LatencySketch{" + "count=" + count + ", bins=" + bins.length + ", max=" + max + '}';
+  }
+}
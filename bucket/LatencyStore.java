@@ -0,0 +1,86 @@
+package bucket;
+
+import java.util.NavigableMap;
+
+/**
+ * The interface represents a store of per-latency LatencyBuckets that many consumer threads add
+ * requests to concurrently.
+ */
+public interface LatencyStore {
+
+  /**
+   * Add a new request with the given latency.
+   *
+   * @param latency the latency
+   */
+  void add(int latency);
+
+  /**
+   * Add several requests with the given latency at once.
+   *
+   * @param latency the latency
+   * @param count the count of requests
+   */
+  void add(int latency, long count);
+
+  /**
+   * Gets the non-empty buckets sorted by latency. Writers call it once all consumers stop.
+   *
+   * @return the buckets keyed by latency
+   */
+  NavigableMap<Integer, LatencyBucket> getBuckets();
+
+  /**
+   * Gets the number of non-empty buckets. It may be called while consumers still add requests.
+   *
+   * @return the number of buckets
+   */
+  default int getBucketCount() {
+    return getBuckets().size();
+  }
+
+  /**
+   * Gets the latency at or below which the given percentage of all requests fall, walking the
+   * buckets in latency order.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the latency at the percentile, or 0 if nothing was recorded
+   */
+  default long getValueAtPercentile(double percentile) {
+    NavigableMap<Integer, LatencyBucket> map = getBuckets();
+    long total = 0;
+    for (LatencyBucket bucket : map.values()) {
+      total += bucket.getCount();
+    }
+    long rank = rankOf(percentile, total);
+    long seen = 0;
+    for (LatencyBucket bucket : map.values()) {
+      seen += bucket.getCount();
+      if (seen >= rank) {
+        return bucket.getLatency();
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the largest latency recorded.
+   *
+   * @return the largest latency, or 0 if nothing was recorded
+   */
+  default long getMaxValue() {
+    NavigableMap<Integer, LatencyBucket> map = getBuckets();
+    return map.isEmpty() ? 0 : map.lastKey();
+  }
+
+  /**
+   * Gets the 1-based rank of the request at a percentile of the given total.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @param total the total count of requests
+   * @return the rank
+   */
+  static long rankOf(double percentile, long total) {
+    return Math.max(1, (long) Math.ceil(percentile / 100 * total));
+  }
+}
@@ -0,0 +1,108 @@
+package bucket;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The type LocalLatencyStore that counts requests per latency for one thread only. Latencies below
+ * DENSE_LIMIT are counted in a primitive array indexed by the latency, and the rare larger ones in
+ * a hash map. It is not thread safe; the owner merges it into a shared store when it stops.
+ */
+public class LocalLatencyStore implements LatencyStore {
+
+  private static final int DENSE_LIMIT = 1 << 20;
+  private static final int INITIAL_CAPACITY = 1024;
+  private long[] counts;
+  private Map<Integer, long[]> outliers;
+
+  /**
+   * Instantiates a new LocalLatencyStore object.
+   */
+  public LocalLatencyStore() {
+    this.counts = new long[INITIAL_CAPACITY];
+    this.outliers = new HashMap<>();
+  }
+
+  /**
+   * Add a new request with the given latency.
+   *
+   * @param latency the latency
+   */
+  @Override
+  public void add(int latency) {
+    add(latency, 1);
+  }
+
+  /**
+   * Add several requests with the given latency at once.
+   *
+   * @param latency the latency
+   * @param count the count of requests
+   */
+  @Override
+  public void add(int latency, long count) {
+    if (latency < 0 || latency >= DENSE_LIMIT) {
+      long[] counter = outliers.get(latency);
+      if (counter == null) {
+        counter = new long[1];
+        outliers.put(latency, counter);
+      }
+      counter[0] += count;
+      return;
+    }
+    if (latency >= counts.length) {
+      long[] grown = new long[Math.min(DENSE_LIMIT, Math.max(latency + 1, counts.length * 2))];
+      System.arraycopy(counts, 0, grown, 0, counts.length);
+      counts = grown;
+    }
+    counts[latency] += count;
+  }
+
+  /**
+   * Gets a sorted snapshot of the non-empty latencies as LatencyBuckets.
+   *
+   * @return the buckets keyed by latency
+   */
+  @Override
+  public NavigableMap<Integer, LatencyBucket> getBuckets() {
+    NavigableMap<Integer, LatencyBucket> buckets = new TreeMap<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] != 0) {
+        LatencyBucket bucket = new LatencyBucket(i);
+        bucket.add(counts[i]);
+        buckets.put(i, bucket);
+      }
+    }
+    for (Entry<Integer, long[]> entry : outliers.entrySet()) {
+      LatencyBucket bucket = new LatencyBucket(entry.getKey());
+      bucket.add(entry.getValue()[0]);
+      buckets.put(entry.getKey(), bucket);
+    }
+    return buckets;
+  }
+
+  /**
+   * Add every count of this store to another store, one call per non-empty latency.
+   *
+   * @param target the target store
+   */
+  public void mergeInto(LatencyStore target) {
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] != 0) {
+        target.add(i, counts[i]);
+      }
+    }
+    for (Entry<Integer, long[]> entry : outliers.entrySet()) {
+      target.add(entry.getKey(), entry.getValue()[0]);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LocalLatencyStore{" + "capacity=" + counts.length + ", outliers=" + outliers.size()
+        + '}';
+  }
+}
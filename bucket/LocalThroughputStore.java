@@ -0,0 +1,184 @@
+package bucket;
+
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The type LocalThroughputStore that keeps the count and latency sum of every second in plain
+ * long array chunks for one thread only. A chunk covers CHUNK_SECONDS consecutive seconds and is
+ * kept in a directory keyed by its chunk number, so memory follows the seconds that occur and an
+ * outlier timestamp only costs one more chunk. The last used chunk is remembered, so a run of
+ * requests in the same chunk costs no directory lookup. It is not thread safe; the owner merges
+ * it into a shared store when it stops.
+ */
+public class LocalThroughputStore implements ThroughputStore {
+
+  private static final int CHUNK_SECONDS = 4096;
+  private NavigableMap<Long, Chunk> chunks;
+  private boolean sketched;
+  private long lastNumber;
+  private Chunk last;
+
+  /**
+   * Instantiates a new LocalThroughputStore object.
+   */
+  public LocalThroughputStore() {
+    this(false);
+  }
+
+  /**
+   * Instantiates a new LocalThroughputStore object.
+   *
+   * @param sketched true to sketch the latency distribution of every second
+   */
+  public LocalThroughputStore(boolean sketched) {
+    this.chunks = new TreeMap<>();
+    this.sketched = sketched;
+  }
+
+  /**
+   * Add a new request to the given second.
+   *
+   * @param second the second
+   * @param latency the latency
+   */
+  @Override
+  public void add(long second, int latency) {
+    Chunk chunk = chunkOf(Math.floorDiv(second, CHUNK_SECONDS));
+    int index = (int) Math.floorMod(second, CHUNK_SECONDS);
+    chunk.counts[index]++;
+    chunk.totalLatencies[index] += latency;
+    if (sketched) {
+      chunk.sketchOf(index).add(latency);
+    }
+  }
+
+  /**
+   * Add several requests to the given second at once.
+   *
+   * @param second the second
+   * @param count the count of requests
+   * @param totalLatency the latency sum of the requests
+   */
+  @Override
+  public void add(long second, long count, long totalLatency) {
+    Chunk chunk = chunkOf(Math.floorDiv(second, CHUNK_SECONDS));
+    int index = (int) Math.floorMod(second, CHUNK_SECONDS);
+    chunk.counts[index] += count;
+    chunk.totalLatencies[index] += totalLatency;
+  }
+
+  /**
+   * Add the latencies of a sketch to the given second.
+   *
+   * @param second the second
+   * @param sketch the sketch
+   */
+  @Override
+  public void add(long second, LatencySketch sketch) {
+    if (sketched) {
+      Chunk chunk = chunkOf(Math.floorDiv(second, CHUNK_SECONDS));
+      chunk.sketchOf((int) Math.floorMod(second, CHUNK_SECONDS)).merge(sketch);
+    }
+  }
+
+  /**
+   * Tells whether the buckets sketch the latency distribution of every second.
+   *
+   * @return true if the buckets carry sketches
+   */
+  @Override
+  public boolean hasSketches() {
+    return sketched;
+  }
+
+  /**
+   * Gets a sorted snapshot of the non-empty seconds as ThroughputBuckets.
+   *
+   * @return the buckets keyed by second
+   */
+  @Override
+  public NavigableMap<Long, ThroughputBucket> getBuckets() {
+    NavigableMap<Long, ThroughputBucket> buckets = new TreeMap<>();
+    for (Entry<Long, Chunk> entry : chunks.entrySet()) {
+      Chunk chunk = entry.getValue();
+      long base = entry.getKey() * CHUNK_SECONDS;
+      for (int i = 0; i < CHUNK_SECONDS; i++) {
+        if (chunk.counts[i] != 0) {
+          LatencySketch sketch = chunk.sketches == null ? null : chunk.sketches[i];
+          buckets.put(base + i, new ThroughputBucket(base + i, chunk.counts[i],
+              chunk.totalLatencies[i], sketch == null ? null : sketch.copy()));
+        }
+      }
+    }
+    return buckets;
+  }
+
+  /**
+   * Add every count and sketch of this store to another store, one call per non-empty second.
+   *
+   * @param target the target store
+   */
+  public void mergeInto(ThroughputStore target) {
+    for (Entry<Long, Chunk> entry : chunks.entrySet()) {
+      Chunk chunk = entry.getValue();
+      long base = entry.getKey() * CHUNK_SECONDS;
+      for (int i = 0; i < CHUNK_SECONDS; i++) {
+        if (chunk.counts[i] != 0) {
+          target.add(base + i, chunk.counts[i], chunk.totalLatencies[i]);
+        }
+        if (chunk.sketches != null && chunk.sketches[i] != null) {
+          target.add(base + i, chunk.sketches[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Helper function that finds the chunk with the given number, allocating it if missing.
+   *
+   * @param number the chunk number
+   * @return the chunk
+   */
+  private Chunk chunkOf(long number) {
+    if (last != null && number == lastNumber) {
+      return last;
+    }
+    Chunk chunk = chunks.get(number);
+    if (chunk == null) {
+      chunk = new Chunk(sketched);
+      chunks.put(number, chunk);
+    }
+    lastNumber = number;
+    last = chunk;
+    return chunk;
+  }
+
+  @Override
+  public String toString() {
+    return "LocalThroughputStore{" + "chunks=" + chunks.size() + '}';
+  }
+
+  /**
+   * The counts, latency sums and sketches of CHUNK_SECONDS consecutive seconds. Sketches are only
+   * created for the seconds that get one.
+   */
+  private static class Chunk {
+
+    private final long[] counts = new long[CHUNK_SECONDS];
+    private final long[] totalLatencies = new long[CHUNK_SECONDS];
+    private final LatencySketch[] sketches;
+
+    private Chunk(boolean sketched) {
+      this.sketches = sketched ? new LatencySketch[CHUNK_SECONDS] : null;
+    }
+
+    private LatencySketch sketchOf(int index) {
+      if (sketches[index] == null) {
+        sketches[index] = new LatencySketch();
+      }
+      return sketches[index];
+    }
+  }
+}
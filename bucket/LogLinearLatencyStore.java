@@ -0,0 +1,178 @@
+package bucket;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The type LogLinearLatencyStore that counts latencies in a fixed array of log-linear buckets, in
+ * the way of HdrHistogram. Every power of two range is split into the same number of linear
+ * sub-buckets, so a recorded latency keeps the given number of significant decimal digits while
+ * the memory stays constant for any latency spread up to Integer.MAX_VALUE. Latencies below the
+ * sub-bucket count are kept exactly. Recording is a single atomic increment.
+ */
+public class LogLinearLatencyStore implements LatencyStore {
+
+  /**
+   * The largest supported number of significant digits.
+   */
+  public static final int MAX_DIGITS = 5;
+  private int subBucketHalfCountMagnitude;
+  private int subBucketHalfCount;
+  private long subBucketMask;
+  private int leadingZeroCountBase;
+  private AtomicLongArray counts;
+  private AtomicLong max;
+
+  /**
+   * Instantiates a new LogLinearLatencyStore object.
+   *
+   * @param digits the number of significant decimal digits to keep, from 1 to MAX_DIGITS
+   */
+  public LogLinearLatencyStore(int digits) {
+    if (digits < 1 || digits > MAX_DIGITS) {
+      throw new IllegalArgumentException("digits must be between 1 and " + MAX_DIGITS + ".");
+    }
+    long largestSingleUnit = 2;
+    for (int i = 0; i < digits; i++) {
+      largestSingleUnit *= 10;
+    }
+    int subBucketCountMagnitude = 64 - Long.numberOfLeadingZeros(largestSingleUnit - 1);
+    this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+    this.subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+    long subBucketCount = 1L << subBucketCountMagnitude;
+    this.subBucketMask = subBucketCount - 1;
+    this.leadingZeroCountBase = 64 - subBucketHalfCountMagnitude - 1;
+    int bucketCount = 1;
+    for (long untrackable = subBucketCount; untrackable <= Integer.MAX_VALUE; untrackable <<= 1) {
+      bucketCount++;
+    }
+    this.counts = new AtomicLongArray((bucketCount + 1) * subBucketHalfCount);
+    this.max = new AtomicLong();
+  }
+
+  /**
+   * Add a new request with the given latency. Negative latencies are counted as 0.
+   *
+   * @param latency the latency
+   */
+  @Override
+  public void add(int latency) {
+    add(latency, 1);
+  }
+
+  /**
+   * Add several requests with the given latency at once.
+   *
+   * @param latency the latency
+   * @param count the count of requests
+   */
+  @Override
+  public void add(int latency, long count) {
+    long value = Math.max(0, latency);
+    counts.getAndAdd(indexOf(value), count);
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Gets the non-empty buckets keyed by the lowest latency each of them covers.
+   *
+   * @return the buckets keyed by latency
+   */
+  @Override
+  public NavigableMap<Integer, LatencyBucket> getBuckets() {
+    NavigableMap<Integer, LatencyBucket> map = new TreeMap<>();
+    for (int i = 0; i < counts.length(); i++) {
+      long count = counts.get(i);
+      if (count > 0) {
+        int latency = (int) valueOf(i);
+        LatencyBucket bucket = new LatencyBucket(latency);
+        bucket.add(count);
+        map.put(latency, bucket);
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Gets the latency at or below which the given percentage of all requests fall. The result is
+   * the highest latency of the bucket the percentile lands in, capped at the recorded maximum.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the latency at the percentile, or 0 if nothing was recorded
+   */
+  @Override
+  public long getValueAtPercentile(double percentile) {
+    long total = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      total += counts.get(i);
+    }
+    long rank = LatencyStore.rankOf(percentile, total);
+    long seen = 0;
+    for (int i = 0; i < counts.length() && total > 0; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(valueOf(i) + rangeOf(i) - 1, max.get());
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the exact largest latency recorded.
+   *
+   * @return the largest latency, or 0 if nothing was recorded
+   */
+  @Override
+  public long getMaxValue() {
+    return max.get();
+  }
+
+  /**
+   * Helper function that finds the counts index of a latency.
+   *
+   * @param value the latency
+   * @return the index
+   */
+  private int indexOf(long value) {
+    int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+    int subBucketIndex = (int) (value >>> bucketIndex);
+    return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + subBucketIndex
+        - subBucketHalfCount;
+  }
+
+  /**
+   * Helper function that finds the lowest latency counted at an index.
+   *
+   * @param index the index
+   * @return the lowest latency
+   */
+  private long valueOf(int index) {
+    int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+    int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+    if (bucketIndex < 0) {
+      subBucketIndex -= subBucketHalfCount;
+      bucketIndex = 0;
+    }
+    return (long) subBucketIndex << bucketIndex;
+  }
+
+  /**
+   * Helper function that finds how many latencies are counted at an index.
+   *
+   * @param index the index
+   * @return the width of the index
+   */
+  private long rangeOf(int index) {
+    return 1L << Math.max(0, (index >> subBucketHalfCountMagnitude) - 1);
+  }
+
+  @Override
+  public String toString() {
+    return "LogLinearLatencyStore{" + "slots=" + counts.length() + ", max=" + max + '}';
+  }
+}
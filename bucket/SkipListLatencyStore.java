@@ -0,0 +1,71 @@
+package bucket;
+
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The type SkipListLatencyStore that keeps one LatencyBucket per latency value in a
+ * ConcurrentSkipListMap.
+ */
+public class SkipListLatencyStore implements LatencyStore {
+
+  private ConcurrentSkipListMap<Integer, LatencyBucket> map;
+
+  /**
+   * Instantiates a new SkipListLatencyStore object.
+   */
+  public SkipListLatencyStore() {
+    this.map = new ConcurrentSkipListMap<>();
+  }
+
+  /**
+   * Add a new request with the given latency, creating the bucket on first use.
+   *
+   * @param latency the latency
+   */
+  @Override
+  public void add(int latency) {
+    bucketOf(latency).addNew(latency);
+  }
+
+  /**
+   * Add several requests with the given latency at once.
+   *
+   * @param latency the latency
+   * @param count the count of requests
+   */
+  @Override
+  public void add(int latency, long count) {
+    bucketOf(latency).add(count);
+  }
+
+  /**
+   * Gets the backing map.
+   *
+   * @return the buckets keyed by latency
+   */
+  @Override
+  public NavigableMap<Integer, LatencyBucket> getBuckets() {
+    return map;
+  }
+
+  /**
+   * Helper function that finds the bucket of a latency, creating it if missing.
+   *
+   * @param latency the latency
+   * @return the bucket
+   */
+  private LatencyBucket bucketOf(int latency) {
+    LatencyBucket bucket = map.get(latency);
+    if (bucket == null) {
+      map.putIfAbsent(latency, new LatencyBucket(latency));
+      bucket = map.get(latency);
+    }
+    return bucket;
+  }
+
+  @Override
+  public String toString() {
+    return "SkipListLatencyStore{" + "size=" + map.size() + '}';
+  }
+}
@@ -0,0 +1,106 @@
+package bucket;
+
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The type SkipListThroughputStore that keeps one ThroughputBucket per second in a
+ * ConcurrentSkipListMap.
+ */
+public class SkipListThroughputStore implements ThroughputStore {
+
+  private ConcurrentSkipListMap<Long, ThroughputBucket> map;
+  private boolean sketched;
+
+  /**
+   * Instantiates a new SkipListThroughputStore object.
+   */
+  public SkipListThroughputStore() {
+    this(false);
+  }
+
+  /**
+   * Instantiates a new SkipListThroughputStore object.
+   *
+   * @param sketched true to sketch the latency distribution of every second
+   */
+  public SkipListThroughputStore(boolean sketched) {
+    this.map = new ConcurrentSkipListMap<>();
+    this.sketched = sketched;
+  }
+
+  /**
+   * Add a new request to the bucket of the given second, creating the bucket on first use.
+   *
+   * @param second the second
+   * @param latency the latency
+   */
+  @Override
+  public void add(long second, int latency) {
+    bucketOf(second).addNew(latency);
+  }
+
+  /**
+   * Add several requests to the bucket of the given second at once.
+   *
+   * @param second the second
+   * @param count the count of requests
+   * @param totalLatency the latency sum of the requests
+   */
+  @Override
+  public void add(long second, long count, long totalLatency) {
+    bucketOf(second).add(count, totalLatency);
+  }
+
+  /**
+   * Add the latencies of a sketch to the bucket of the given second.
+   *
+   * @param second the second
+   * @param sketch the sketch
+   */
+  @Override
+  public void add(long second, LatencySketch sketch) {
+    bucketOf(second).merge(sketch);
+  }
+
+  /**
+   * Tells whether the buckets sketch the latency distribution of every second.
+   *
+   * @return true if the buckets carry sketches
+   */
+  @Override
+  public boolean hasSketches() {
+    return sketched;
+  }
+
+  /**
+   * Gets the backing map.
+   *
+   * @return the buckets keyed by second
+   */
+  @Override
+  public NavigableMap<Long, ThroughputBucket> getBuckets() {
+    return map;
+  }
+
+  /**
+   * Helper function that finds the bucket of a second, creating it if missing.
+   *
+   * @param second the second
+   * @return the bucket
+   */
+  private ThroughputBucket bucketOf(long second) {
+    ThroughputBucket bucket = map.get(second);
+    if (bucket == null) {
+      map.putIfAbsent(second,
+          new ThroughputBucket(second, sketched ? new LatencySketch() : null));
+      bucket = map.get(second);
+    }
+    return bucket;
+  }
+
+  @Override
+  public String toString() {
+    return "SkipListThroughputStore{" + "size=" + map.size() + '}';
+  }
+}
@@ -11,6 +11,7 @@ public class ThroughputBucket implements BucketAddable {
   private long second;
   private AtomicLong count;
   private AtomicLong totalLatency;
+  private LatencySketch sketch;
 
   /**
    * Instantiates a new ThroughputBucket object.
@@ -23,6 +24,44 @@ public class ThroughputBucket implements BucketAddable {
     this.totalLatency = new AtomicLong(0);
   }
 
+  /**
+   * Instantiates a new ThroughputBucket object that also sketches the latency distribution.
+   *
+   * @param second the second
+   * @param sketch the sketch of the second, or null to keep the mean only
+   */
+  public ThroughputBucket(long second, LatencySketch sketch) {
+    this(second);
+    this.sketch = sketch;
+  }
+
+  /**
+   * Instantiates a new ThroughputBucket object that already holds some requests.
+   *
+   * @param second the second
+   * @param count the count of requests
+   * @param totalLatency the latency sum of the requests
+   */
+  public ThroughputBucket(long second, long count, long totalLatency) {
+    this.second = second;
+    this.count = new AtomicLong(count);
+    this.totalLatency = new AtomicLong(totalLatency);
+  }
+
+  /**
+   * Instantiates a new ThroughputBucket object that already holds some requests and their
+   * sketch.
+   *
+   * @param second the second
+   * @param count the count of requests
+   * @param totalLatency the latency sum of the requests
+   * @param sketch the sketch of the requests, or null to keep the mean only
+   */
+  public ThroughputBucket(long second, long count, long totalLatency, LatencySketch sketch) {
+    this(second, count, totalLatency);
+    this.sketch = sketch;
+  }
+
   /**
    * Add new a request and update the count and latency.
    *
@@ -30,10 +69,45 @@ public class ThroughputBucket implements BucketAddable {
    */
   @Override
   public void addNew(int latency) {
+    if (sketch != null) {
+      sketch.add(latency);
+    }
     totalLatency.getAndAdd(latency);
     count.getAndIncrement();
   }
 
+  /**
+   * Add several requests at once and update the count and latency.
+   *
+   * @param count the count of requests
+   * @param totalLatency the latency sum of the requests
+   */
+  public void add(long count, long totalLatency) {
+    this.totalLatency.getAndAdd(totalLatency);
+    this.count.getAndAdd(count);
+  }
+
+  /**
+   * Add the latencies of a sketch to the sketch of the bucket. The count and latency sum are
+   * added separately.
+   *
+   * @param other the sketch to add
+   */
+  public void merge(LatencySketch other) {
+    if (sketch != null) {
+      sketch.merge(other);
+    }
+  }
+
+  /**
+   * Gets the sketch of the bucket.
+   *
+   * @return the sketch, or null if the bucket keeps the mean only
+   */
+  public LatencySketch getSketch() {
+    return sketch;
+  }
+
   /**
    * Gets the second of the bucket.
    *
@@ -0,0 +1,59 @@
+package bucket;
+
+import java.util.NavigableMap;
+
+/**
+ * The interface represents a store of per-second ThroughputBuckets that many consumer threads add
+ * requests to concurrently.
+ */
+public interface ThroughputStore {
+
+  /**
+   * Add a new request to the bucket of the given second.
+   *
+   * @param second the second
+   * @param latency the latency
+   */
+  void add(long second, int latency);
+
+  /**
+   * Add several requests to the bucket of the given second at once.
+   *
+   * @param second the second
+   * @param count the count of requests
+   * @param totalLatency the latency sum of the requests
+   */
+  void add(long second, long count, long totalLatency);
+
+  /**
+   * Add the latencies of a sketch to the sketch of the given second. The count and latency sum
+   * are added separately; stores without sketches ignore it.
+   *
+   * @param second the second
+   * @param sketch the sketch
+   */
+  void add(long second, LatencySketch sketch);
+
+  /**
+   * Tells whether the buckets sketch the latency distribution of every second.
+   *
+   * @return true if the buckets carry sketches
+   */
+  boolean hasSketches();
+
+  /**
+   * Gets the non-empty buckets sorted by second. Writers call it once all consumers stop.
+   *
+   * @return the buckets keyed by second
+   */
+  NavigableMap<Long, ThroughputBucket> getBuckets();
+
+  /**
+   * Gets the number of non-empty buckets. It may be called while consumers still add requests.
+   *
+   * @return the number of buckets
+   */
+  default int getBucketCount() {
+    return getBuckets().size();
+  }
+}
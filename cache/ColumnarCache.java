@@ -0,0 +1,183 @@
+package cache;
+
+import parser.RecordBatch;
+import parser.RequestRecord;
+import parser.RequestRecord.Method;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The type Columnar cache that reads the binary sidecar of a raw CSV file. The sidecar starts with
+ * a HEADER_SIZE header holding the size and modification time of the raw file it was built from,
+ * the start time and the record count. Blocks of records follow; a block holds its record count
+ * and then one column each of timestamp deltas to the start time, latencies, statuses and method
+ * ordinals. Blocks are independent, so several producers can decode different blocks at once.
+ */
+public class ColumnarCache {
+
+  /**
+   * The suffix appended to the raw file name.
+   */
+  public static final String SUFFIX = ".cols";
+  /**
+   * The size of the header in bytes.
+   */
+  public static final int HEADER_SIZE = 48;
+  static final int MAGIC = 0x50445043;
+  static final int VERSION = 1;
+  private static final Method[] METHODS = Method.values();
+  private String fileName;
+  private long length;
+  private long startTime;
+  private long recordCount;
+
+  /**
+   * Instantiates a new Columnar cache.
+   *
+   * @param fileName the cache file
+   * @param length the size of the cache file
+   * @param startTime the start time of the raw file
+   * @param recordCount the record count
+   */
+  private ColumnarCache(String fileName, long length, long startTime, long recordCount) {
+    this.fileName = fileName;
+    this.length = length;
+    this.startTime = startTime;
+    this.recordCount = recordCount;
+  }
+
+  /**
+   * Opens the sidecar of a raw file if it exists, is complete and was built from the raw file as
+   * it is now.
+   *
+   * @param rawFile the raw CSV file
+   * @return the cache, or null if there is no usable sidecar
+   * @throws IOException if the sidecar cannot be read
+   */
+  public static ColumnarCache open(String rawFile) throws IOException {
+    File raw = new File(rawFile);
+    File file = new File(rawFile + SUFFIX);
+    if (!file.isFile() || file.length() < HEADER_SIZE) {
+      return null;
+    }
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+      FileChannel channel = randomAccessFile.getChannel();
+      while (header.hasRemaining() && channel.read(header) != -1) {
+        continue;
+      }
+    }
+    header.flip();
+    if (header.getInt() != MAGIC || header.getInt() != VERSION
+        || header.getLong() != raw.length() || header.getLong() != raw.lastModified()) {
+      return null;
+    }
+    return new ColumnarCache(file.getPath(), file.length(), header.getLong(), header.getLong());
+  }
+
+  /**
+   * Gets the cache file.
+   *
+   * @return the file name
+   */
+  public String getFileName() {
+    return fileName;
+  }
+
+  /**
+   * Gets the timestamp the deltas are relative to, the first request of the raw file.
+   *
+   * @return the start time
+   */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Gets the record count.
+   *
+   * @return the record count
+   */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Splits the blocks into at most the given number of ranges of similar size. Every range starts
+   * and ends on a block boundary.
+   *
+   * @param parts the number of ranges wanted
+   * @return the begin indexes in the first row and the end indexes in the second
+   * @throws IOException if the cache cannot be read
+   */
+  public long[][] getRanges(int parts) throws IOException {
+    List<Long> begins = new ArrayList<>();
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(fileName, "r")) {
+      FileChannel channel = randomAccessFile.getChannel();
+      ByteBuffer count = ByteBuffer.allocate(4);
+      long gap = Math.max(1, (length - HEADER_SIZE) / parts);
+      long next = HEADER_SIZE;
+      long position = HEADER_SIZE;
+      while (position < length) {
+        if (position >= next) {
+          begins.add(position);
+          next = position + gap;
+        }
+        count.clear();
+        channel.read(count, position);
+        count.flip();
+        position += blockSize(count.getInt());
+      }
+    }
+    long[][] ranges = new long[2][begins.size()];
+    for (int i = 0; i < begins.size(); i++) {
+      ranges[0][i] = begins.get(i);
+      ranges[1][i] = i + 1 < begins.size() ? begins.get(i + 1) : length;
+    }
+    return ranges;
+  }
+
+  /**
+   * Decodes the block at a position of a buffer into a batch.
+   *
+   * @param buf the buffer holding the whole block
+   * @param position the position of the block in the buffer
+   * @param batch the empty batch, large enough for the block
+   * @param record the reusable record
+   * @return the position of the next block
+   */
+  public int decode(ByteBuffer buf, int position, RecordBatch batch, RequestRecord record) {
+    int count = buf.getInt(position);
+    int timestamps = position + 4;
+    int latencies = timestamps + count * 4;
+    int statuses = latencies + count * 4;
+    int methods = statuses + count * 2;
+    for (int i = 0; i < count; i++) {
+      record.set(startTime + buf.getInt(timestamps + i * 4), METHODS[buf.get(methods + i)],
+          buf.getInt(latencies + i * 4), buf.getShort(statuses + i * 2));
+      batch.add(record);
+    }
+    return methods + count;
+  }
+
+  /**
+   * Gets the size in bytes of a block with the given record count.
+   *
+   * @param count the record count
+   * @return the size of the block
+   */
+  public static int blockSize(int count) {
+    return 4 + count * 11;
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnarCache{" + "fileName='" + fileName + '\'' + ", records=" + recordCount + '}';
+  }
+}
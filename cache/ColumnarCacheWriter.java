@@ -0,0 +1,149 @@
+package cache;
+
+import parser.RecordBatch;
+import parser.RequestRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The type Columnar cache writer that builds the binary sidecar of a raw CSV file while the raw
+ * file is ingested. Every producer appends its batches as blocks, in any order, and releases the
+ * writer when it is done. The last release writes the header and moves the temporary file into
+ * place, so a sidecar only appears once it is complete. If any producer fails the sidecar is
+ * dropped.
+ */
+public class ColumnarCacheWriter {
+
+  private static final String TEMP_SUFFIX = ".tmp";
+  private File rawFile;
+  private File file;
+  private long rawLength;
+  private long rawModified;
+  private long startTime;
+  private int openProducers;
+  private long recordCount;
+  private boolean failed;
+  private RandomAccessFile output;
+  private FileChannel channel;
+
+  /**
+   * Instantiates a new Columnar cache writer.
+   *
+   * @param rawFile the raw CSV file
+   * @param startTime the timestamp of the first request of the raw file
+   * @param producers the number of producers that will release the writer
+   * @throws IOException if the temporary file cannot be created
+   */
+  public ColumnarCacheWriter(String rawFile, long startTime, int producers) throws IOException {
+    this.rawFile = new File(rawFile);
+    this.rawLength = this.rawFile.length();
+    this.rawModified = this.rawFile.lastModified();
+    this.file = new File(rawFile + ColumnarCache.SUFFIX + TEMP_SUFFIX);
+    this.startTime = startTime;
+    this.openProducers = producers;
+    this.output = new RandomAccessFile(file, "rw");
+    this.output.setLength(0);
+    this.channel = output.getChannel();
+    this.channel.position(ColumnarCache.HEADER_SIZE);
+  }
+
+  /**
+   * Appends a batch as one block. Timestamps are stored as int deltas to the start time, so a
+   * batch with a timestamp more than about 24.8 days away drops the sidecar; the ingestion itself
+   * goes on.
+   *
+   * @param batch the batch
+   * @param record the reusable record
+   * @throws IOException if the block cannot be written
+   */
+  public void append(RecordBatch batch, RequestRecord record) throws IOException {
+    int count = batch.size();
+    ByteBuffer buf = ByteBuffer.allocate(ColumnarCache.blockSize(count));
+    int timestamps = 4;
+    int latencies = timestamps + count * 4;
+    int statuses = latencies + count * 4;
+    int methods = statuses + count * 2;
+    buf.putInt(0, count);
+    for (int i = 0; i < count; i++) {
+      batch.get(i, record);
+      long delta = record.getTimestamp() - startTime;
+      if (delta != (int) delta) {
+        skip("timestamp " + record.getTimestamp() + " is too far from " + startTime);
+        return;
+      }
+      buf.putInt(timestamps + i * 4, (int) delta);
+      buf.putInt(latencies + i * 4, record.getLatency());
+      buf.putShort(statuses + i * 2, record.getStatus());
+      buf.put(methods + i, (byte) record.getMethod().ordinal());
+    }
+    synchronized (this) {
+      if (failed) {
+        return;
+      }
+      while (buf.hasRemaining()) {
+        channel.write(buf);
+      }
+      recordCount += count;
+    }
+  }
+
+  /**
+   * Helper function that drops the sidecar because the raw file cannot be cached, telling why the
+   * first time.
+   *
+   * @param reason the reason
+   */
+  private synchronized void skip(String reason) {
+    if (!failed) {
+      System.out.println("Skip cache of " + rawFile.getPath() + ": " + reason + ".");
+    }
+    failed = true;
+  }
+
+  /**
+   * Marks the sidecar as failed, so it is dropped when the last producer releases the writer.
+   */
+  public synchronized void abort() {
+    failed = true;
+  }
+
+  /**
+   * Releases the writer for one producer. The last release completes or drops the sidecar.
+   */
+  public synchronized void release() {
+    if (--openProducers > 0) {
+      return;
+    }
+    try {
+      if (!failed) {
+        ByteBuffer header = ByteBuffer.allocate(ColumnarCache.HEADER_SIZE);
+        header.putInt(ColumnarCache.MAGIC).putInt(ColumnarCache.VERSION).putLong(rawLength)
+            .putLong(rawModified).putLong(startTime).putLong(recordCount).flip();
+        while (header.hasRemaining()) {
+          channel.write(header, header.position());
+        }
+      }
+      output.close();
+      if (failed) {
+        Files.deleteIfExists(file.toPath());
+      } else {
+        Files.move(file.toPath(), new File(rawFile.getPath() + ColumnarCache.SUFFIX).toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("Generate: " + rawFile.getPath() + ColumnarCache.SUFFIX);
+      }
+    } catch (IOException ex) {
+      System.out.println("ERROR: something went wrong: " + ex.getMessage());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnarCacheWriter{" + "file=" + file + ", records=" + recordCount + '}';
+  }
+}
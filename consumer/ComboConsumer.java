@@ -1,61 +1,30 @@
 package consumer;
 
-import bucket.BucketAddable;
-import bucket.LatencyBucket;
-import bucket.ThroughputBucket;
-
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentSkipListMap;
+import bucket.LatencyStore;
+import bucket.ThroughputStore;
+import pool.Job;
+import transport.Transport;
 
 /**
  * The type Combo consumer that takes information from one queue and handles both throughput and
- * latency buckets.
+ * latency buckets. It is the multicast consumer with one throughput sink and one latency sink, so
+ * each line is parsed once for both.
  */
-public class ComboConsumer extends ReqConsumer {
-
-  private static long startTimestamp;
-  private ConcurrentSkipListMap<Number, BucketAddable> throughputMap;
-  private ConcurrentSkipListMap<Number, BucketAddable> latencyMap;
+public class ComboConsumer extends MulticastConsumer {
 
   /**
    * Instantiates a new Combo Request consumer.
    *
+   * @param job the job of the file
    * @param queue the queue
-   * @param throughputMap the throughputMap
-   * @param latencyMap the latencyMap
-   */
-  public ComboConsumer(BlockingQueue queue, ConcurrentSkipListMap throughputMap,
-      ConcurrentSkipListMap latencyMap) {
-    super(queue);
-    this.throughputMap = throughputMap;
-    this.latencyMap = latencyMap;
-  }
-
-  /**
-   * Sets start timestamp.
-   *
-   * @param startTimestamp the start timestamp
+   * @param throughputMap the throughput store
+   * @param latencyMap the latency store
+   * @param startTimestamp the timestamp of the first request of the file
    */
-  public static void setStartTimestamp(long startTimestamp) {
-    ComboConsumer.startTimestamp = startTimestamp;
-  }
-
-  /**
-   * Add request that taken from a queue to the Buckets .
-   *
-   * @param info the list of parsed information from a String line
-   */
-  @Override
-  public void addRequest(List<String> info) {
-    long timestamp = Long.parseLong(info.get(0));
-    int latency = Integer.parseInt(info.get(2));
-    long second =
-        timestamp % UNIT < startTimestamp % UNIT ? timestamp / UNIT - 1 : timestamp / UNIT;
-    throughputMap.putIfAbsent(second, new ThroughputBucket(second));
-    throughputMap.get(second).addNew(latency);
-    latencyMap.putIfAbsent(latency, new LatencyBucket(latency));
-    latencyMap.get(latency).addNew(latency);
+  public ComboConsumer(Job job, Transport<Object> queue, ThroughputStore throughputMap,
+      LatencyStore latencyMap, long startTimestamp) {
+    super(job, queue, new ThroughputSink(throughputMap, startTimestamp),
+        new LatencySink(latencyMap));
   }
 
   @Override
@@ -1,38 +1,57 @@
 package consumer;
 
-import bucket.LatencyBucket;
-
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentSkipListMap;
+import bucket.LatencyStore;
+import parser.RequestRecord;
+import pool.Job;
+import transport.Transport;
 
 /**
  * The type Latency Request Consumer that can handle requests from a queue, then encapsulate the
  * request into a bucket. If the target bucket exists in the map, then update it, otherwise, add a
  * new bucket element into the map.
  */
-public class LatencyConsumer extends SpecialConsumer {
+public class LatencyConsumer extends SpecialConsumer<LatencyStore> {
+
+  private LatencySink sink;
 
   /**
    * Instantiates a new Latency consumer.
    *
+   * @param job the job of the file
    * @param queue the queue
-   * @param map the map
+   * @param map the latency store
    */
-  public LatencyConsumer(BlockingQueue queue, ConcurrentSkipListMap map) {
-    super(queue, map);
+  public LatencyConsumer(Job job, Transport<Object> queue, LatencyStore map) {
+    super(job, queue, map);
+    this.sink = new LatencySink(map);
+  }
+
+  /**
+   * Sets whether the consumer adds requests to a private latency store.
+   *
+   * @param localAggregation true to aggregate locally
+   */
+  @Override
+  public void setLocalAggregation(boolean localAggregation) {
+    sink.setLocalAggregation(localAggregation);
   }
 
   /**
    * Add request that taken from a queue to the Buckets .
    *
-   * @param info the list of parsed information from a String line
+   * @param record the parsed record of a line
+   */
+  @Override
+  public void addRequest(RequestRecord record) {
+    sink.addRequest(record);
+  }
+
+  /**
+   * Merge the private latency store into the shared one.
    */
   @Override
-  public void addRequest(List<String> info) {
-    int latency = Integer.parseInt(info.get(2));
-    getMap().putIfAbsent(latency, new LatencyBucket(latency));
-    getMap().get(latency).addNew(latency);
+  protected void mergeLocal() {
+    sink.mergeLocal();
   }
 
   @Override
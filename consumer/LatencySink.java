@@ -0,0 +1,50 @@
+package consumer;
+
+import bucket.LatencyStore;
+import bucket.LocalLatencyStore;
+import parser.RequestRecord;
+
+/**
+ * The type Latency sink that adds records to per-latency buckets.
+ */
+public class LatencySink implements RecordSink {
+
+  private LatencyStore store;
+  private LocalLatencyStore local;
+
+  /**
+   * Instantiates a new Latency sink.
+   *
+   * @param store the shared latency store
+   */
+  public LatencySink(LatencyStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public void addRequest(RequestRecord record) {
+    if (local != null) {
+      local.add(record.getLatency());
+    } else {
+      store.add(record.getLatency());
+    }
+  }
+
+  @Override
+  public void setLocalAggregation(boolean localAggregation) {
+    local = localAggregation ? new LocalLatencyStore() : null;
+  }
+
+  @Override
+  public void mergeLocal() {
+    if (local != null) {
+      local.mergeInto(store);
+      local = null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LatencySink{" + "store=" + store + '}';
+  }
+}
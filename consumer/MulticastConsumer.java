@@ -0,0 +1,66 @@
+package consumer;
+
+import parser.RequestRecord;
+import pool.Job;
+import transport.Transport;
+
+/**
+ * The type Multicast consumer that takes every item from one queue once, parses it once and
+ * broadcasts the record to several sinks. Each sink keeps its own aggregation, so adding a new
+ * kind of bucket does not need another queue or another parse of the same line.
+ */
+public class MulticastConsumer extends ReqConsumer {
+
+  private RecordSink[] sinks;
+
+  /**
+   * Instantiates a new Multicast consumer.
+   *
+   * @param job the job of the file
+   * @param queue the queue
+   * @param sinks the sinks every record is sent to
+   */
+  public MulticastConsumer(Job job, Transport<Object> queue, RecordSink... sinks) {
+    super(job, queue);
+    this.sinks = sinks.clone();
+  }
+
+  /**
+   * Sets whether every sink adds records to a private store first.
+   *
+   * @param localAggregation true to aggregate locally
+   */
+  @Override
+  public void setLocalAggregation(boolean localAggregation) {
+    for (RecordSink sink : sinks) {
+      sink.setLocalAggregation(localAggregation);
+    }
+  }
+
+  /**
+   * Send the record to every sink.
+   *
+   * @param record the parsed record of a line
+   */
+  @Override
+  public void addRequest(RequestRecord record) {
+    for (RecordSink sink : sinks) {
+      sink.addRequest(record);
+    }
+  }
+
+  /**
+   * Merge the private stores of every sink into the shared ones.
+   */
+  @Override
+  protected void mergeLocal() {
+    for (RecordSink sink : sinks) {
+      sink.mergeLocal();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Multicast ReqConsumer: " + Thread.currentThread().getName();
+  }
+}
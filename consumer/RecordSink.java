@@ -0,0 +1,29 @@
+package consumer;
+
+import parser.RequestRecord;
+
+/**
+ * The interface represents one aggregation that parsed records are sent to, such as throughput or
+ * latency buckets. A sink belongs to one consumer thread.
+ */
+public interface RecordSink {
+
+  /**
+   * Add a parsed record to the sink's buckets.
+   *
+   * @param record the parsed record of a line
+   */
+  void addRequest(RequestRecord record);
+
+  /**
+   * Sets whether the sink adds records to a private, unsynchronized store first.
+   *
+   * @param localAggregation true to aggregate locally
+   */
+  void setLocalAggregation(boolean localAggregation);
+
+  /**
+   * Merge the private store, if any, into the shared store.
+   */
+  void mergeLocal();
+}
@@ -1,10 +1,14 @@
 package consumer;
 
-import pool.ThreadPool;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import metrics.PipelineMetrics;
+import parser.RecordBatch;
+import parser.RecordParser;
+import parser.RequestRecord;
+import pool.Job;
+import producer.PoisonPillProducer;
+import timer.PhaseProfiler;
+import timer.PhaseProfiler.Phase;
+import transport.Transport;
 
 /**
  * The type Request Consumer that can handle requests from a queue, then encapsulate the request
@@ -17,63 +21,131 @@ public abstract class ReqConsumer implements Runnable {
    * The constant UNIT presents second to million second.
    */
   public static final int UNIT = 1000;
-  /**
-   * The constant SPLIT_REGEX.
-   */
-  public static final String SPLIT_REGEX = "(?<=\"),(?=\")";
-  private BlockingQueue<String> queue;
+  private Job job;
+  private Transport<Object> queue;
+  private RecordParser parser;
+  private RequestRecord record;
 
   /**
    * Instantiates a new Request consumer.
    *
+   * @param job the job of the file
    * @param queue the queue
    */
-  public ReqConsumer(BlockingQueue queue) {
+  public ReqConsumer(Job job, Transport<Object> queue) {
+    this.job = job;
     this.queue = queue;
+    this.parser = new RecordParser();
+    this.record = new RequestRecord();
   }
 
   /**
    * Add request that taken from a queue to the Buckets .
    *
-   * @param info the list of parsed information from a String line
+   * @param record the parsed record of a line
+   */
+  public abstract void addRequest(RequestRecord record);
+
+  /**
+   * Sets whether the consumer adds requests to private, unsynchronized stores that are merged
+   * into the shared stores once the queue is drained. Subclasses that support it override this
+   * method together with mergeLocal().
+   *
+   * @param localAggregation true to aggregate locally
+   */
+  public void setLocalAggregation(boolean localAggregation) {
+  }
+
+  /**
+   * Merge the private stores into the shared stores. It runs once, after the last request is
+   * added and before the consumer latch is counted down, so writers always see merged results.
    */
-  public abstract void addRequest(List<String> info);
+  protected void mergeLocal() {
+  }
 
   /**
-   * Parse the information of a line.
+   * Parse the information of a line into the consumer's reusable record.
    *
    * @param line the line
-   * @return the list
+   * @return the parsed record, or null if the line is malformed
+   */
+  public RequestRecord parseLine(String line) {
+    return parser.parse(line, record) ? record : null;
+  }
+
+  /**
+   * Add every record of a batch that taken from a queue to the Buckets.
+   *
+   * @param batch the batch of parsed records
    */
-  public List<String> parseLine(String line) {
-    String[] fields = line.split(SPLIT_REGEX);
-    List<String> list = new ArrayList<>(fields.length);
-    for (int i = 0; i < fields.length; i++) {
-      String field = fields[i].replaceAll("\"", "");
-      list.add(field);
+  public void addBatch(RecordBatch batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      batch.get(i, record);
+      addRequest(record);
     }
-    return list;
   }
 
   /**
-   * The run method implements the Runnable interface.
+   * The run method implements the Runnable interface. The consumer blocks on the queue while it is
+   * empty and stops when it takes a poison pill, which is only put after every line. An item is
+   * either a raw line or a batch of records parsed by the producer. If adding a request fails, the
+   * job is marked failed and the consumer only drains the queue, so producers never block on it,
+   * and the latch is always counted down.
    */
   @Override
   public void run() {
     System.out.println(this + " start");
-    while (true) {
-      if (queue.isEmpty() && ThreadPool.getProducerLatch().getCount() == 0) {
-        break;
-      } else {
-        String line = queue.poll();
-        if (line == null) {
+    PipelineMetrics metrics = job.getMetrics();
+    int metricsSlot = metrics == null ? 0 : metrics.claimConsumer();
+    long pendingRecords = 0;
+    boolean failed = false;
+    Phase aggregation = PhaseProfiler.start(job.getFileName(), "aggregation");
+    try {
+      while (true) {
+        Object item = queue.take();
+        if (item == PoisonPillProducer.POISON_PILL) {
+          break;
+        }
+        if (failed) {
           continue;
         }
-        List<String> info = parseLine(line);
-        addRequest(info);
+        if (metrics != null) {
+          pendingRecords += item instanceof RecordBatch ? ((RecordBatch) item).size() : 1;
+          if (pendingRecords >= PipelineMetrics.PUBLISH_RECORDS) {
+            metrics.addConsumed(metricsSlot, pendingRecords);
+            pendingRecords = 0;
+          }
+        }
+        try {
+          if (item instanceof RecordBatch) {
+            addBatch((RecordBatch) item);
+          } else {
+            RequestRecord info = parseLine((String) item);
+            if (info != null) {
+              addRequest(info);
+            }
+          }
+        } catch (RuntimeException ex) {
+          System.out.println("ERROR: " + this + " failed: " + ex);
+          job.fail(ex);
+          failed = true;
+        }
+      }
+      if (metrics != null) {
+        metrics.addConsumed(metricsSlot, pendingRecords);
+      }
+      if (!failed) {
+        mergeLocal();
       }
+    } catch (InterruptedException ex) {
+      System.out.println(ex.getMessage());
+    } catch (RuntimeException ex) {
+      System.out.println("ERROR: " + this + " failed: " + ex);
+      job.fail(ex);
+    } finally {
+      aggregation.end();
+      job.getConsumerLatch().countDown();
     }
     System.out.println(this + " stop");
-    ThreadPool.getConsumerLatch().countDown();
   }
 }
@@ -1,25 +1,26 @@
 package consumer;
 
-import bucket.BucketAddable;
-
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentSkipListMap;
+import pool.Job;
+import transport.Transport;
 
 /**
  * The type Special consumer that only handle throughput or latency bucket.
+ *
+ * @param <T> the type of the store the consumer adds buckets to
  */
-public abstract class SpecialConsumer extends ReqConsumer {
+public abstract class SpecialConsumer<T> extends ReqConsumer {
 
-  private ConcurrentSkipListMap<Number, BucketAddable> map;
+  private T map;
 
   /**
    * Instantiates a new Request consumer.
    *
+   * @param job the job of the file
    * @param queue the queue
    * @param map the map
    */
-  public SpecialConsumer(BlockingQueue queue, ConcurrentSkipListMap map) {
-    super(queue);
+  public SpecialConsumer(Job job, Transport<Object> queue, T map) {
+    super(job, queue);
     this.map = map;
   }
 
@@ -28,7 +29,7 @@ public abstract class SpecialConsumer extends ReqConsumer {
    *
    * @return the map
    */
-  public ConcurrentSkipListMap<Number, BucketAddable> getMap() {
+  public T getMap() {
     return map;
   }
 }
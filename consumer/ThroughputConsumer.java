@@ -1,52 +1,59 @@
 package consumer;
 
-import bucket.ThroughputBucket;
-
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentSkipListMap;
+import bucket.ThroughputStore;
+import parser.RequestRecord;
+import pool.Job;
+import transport.Transport;
 
 /**
  * The type Throughput Request Consumer that can handle requests from a queue, then encapsulate the
  * request into a bucket. If the target bucket exists in the map, then update it, otherwise, add a
  * new bucket element into the map.
  */
-public class ThroughputConsumer extends SpecialConsumer {
+public class ThroughputConsumer extends SpecialConsumer<ThroughputStore> {
 
-  private static long startTimestamp;
+  private ThroughputSink sink;
 
   /**
    * Instantiates a new Throughput consumer.
    *
+   * @param job the job of the file
    * @param queue the queue
-   * @param map the map
+   * @param map the throughput store
+   * @param startTimestamp the timestamp of the first request of the file
    */
-  public ThroughputConsumer(BlockingQueue queue, ConcurrentSkipListMap map) {
-    super(queue, map);
+  public ThroughputConsumer(Job job, Transport<Object> queue, ThroughputStore map,
+      long startTimestamp) {
+    super(job, queue, map);
+    this.sink = new ThroughputSink(map, startTimestamp);
   }
 
   /**
-   * Sets start timestamp.
+   * Sets whether the consumer adds requests to a private throughput store.
    *
-   * @param startTimestamp the start timestamp
+   * @param localAggregation true to aggregate locally
    */
-  public static void setStartTimestamp(long startTimestamp) {
-    ThroughputConsumer.startTimestamp = startTimestamp;
+  @Override
+  public void setLocalAggregation(boolean localAggregation) {
+    sink.setLocalAggregation(localAggregation);
   }
 
   /**
    * Add request that taken from a queue to the Buckets .
    *
-   * @param info the list of parsed information from a String line
+   * @param record the parsed record of a line
+   */
+  @Override
+  public void addRequest(RequestRecord record) {
+    sink.addRequest(record);
+  }
+
+  /**
+   * Merge the private throughput store into the shared one.
    */
   @Override
-  public void addRequest(List<String> info) {
-    long timestamp = Long.parseLong(info.get(0));
-    int latency = Integer.parseInt(info.get(2));
-    long second =
-        timestamp % UNIT < startTimestamp % UNIT ? timestamp / UNIT - 1 : timestamp / UNIT;
-    getMap().putIfAbsent(second, new ThroughputBucket(second));
-    getMap().get(second).addNew(latency);
+  protected void mergeLocal() {
+    sink.mergeLocal();
   }
 
   @Override
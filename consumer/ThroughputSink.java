@@ -0,0 +1,57 @@
+package consumer;
+
+import bucket.LocalThroughputStore;
+import bucket.ThroughputStore;
+import parser.RequestRecord;
+
+/**
+ * The type Throughput sink that adds records to per-second throughput buckets. Seconds are aligned
+ * to the millisecond offset of the first request of the file.
+ */
+public class ThroughputSink implements RecordSink {
+
+  private ThroughputStore store;
+  private long startTimestamp;
+  private LocalThroughputStore local;
+
+  /**
+   * Instantiates a new Throughput sink.
+   *
+   * @param store the shared throughput store
+   * @param startTimestamp the timestamp of the first request of the file
+   */
+  public ThroughputSink(ThroughputStore store, long startTimestamp) {
+    this.store = store;
+    this.startTimestamp = startTimestamp;
+  }
+
+  @Override
+  public void addRequest(RequestRecord record) {
+    long timestamp = record.getTimestamp();
+    long second = timestamp % ReqConsumer.UNIT < startTimestamp % ReqConsumer.UNIT
+        ? timestamp / ReqConsumer.UNIT - 1 : timestamp / ReqConsumer.UNIT;
+    if (local != null) {
+      local.add(second, record.getLatency());
+    } else {
+      store.add(second, record.getLatency());
+    }
+  }
+
+  @Override
+  public void setLocalAggregation(boolean localAggregation) {
+    local = localAggregation ? new LocalThroughputStore(store.hasSketches()) : null;
+  }
+
+  @Override
+  public void mergeLocal() {
+    if (local != null) {
+      local.mergeInto(store);
+      local = null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ThroughputSink{" + "store=" + store + ", startTimestamp=" + startTimestamp + '}';
+  }
+}
@@ -0,0 +1,65 @@
+package generator;
+
+import java.util.Random;
+
+/**
+ * The distribution that request latencies are drawn from. Every distribution is scaled by the
+ * median latency of the run, and every sample is at least one millisecond.
+ */
+public enum LatencyDistribution {
+
+  /**
+   * A log-normal distribution, the usual shape of a healthy service.
+   */
+  LOGNORMAL,
+
+  /**
+   * Two log-normal modes, a fast one for four fifths of the requests and one six times slower,
+   * like a cache in front of a backend.
+   */
+  BIMODAL,
+
+  /**
+   * A Pareto distribution whose rare slow requests dominate the upper percentiles.
+   */
+  HEAVY_TAIL;
+
+  private static final double SIGMA = 0.8;
+  private static final double MODE_SIGMA = 0.3;
+  private static final double SLOW_SHARE = 0.2;
+  private static final double SLOW_FACTOR = 6;
+  private static final double TAIL_ALPHA = 1.5;
+  private static final long MAX_LATENCY = 120000;
+
+  /**
+   * Draw one latency.
+   *
+   * @param median the median latency in milliseconds
+   * @param random the random source
+   * @return the latency in milliseconds
+   */
+  public long sample(double median, Random random) {
+    double latency;
+    if (this == LOGNORMAL) {
+      latency = median * Math.exp(SIGMA * random.nextGaussian());
+    } else if (this == BIMODAL) {
+      double mode = random.nextDouble() < SLOW_SHARE ? median * SLOW_FACTOR : median * 0.75;
+      latency = mode * Math.exp(MODE_SIGMA * random.nextGaussian());
+    } else {
+      //the median of a Pareto distribution is its scale times 2^(1/alpha).
+      double scale = median / Math.pow(2, 1 / TAIL_ALPHA);
+      latency = scale / Math.pow(1 - random.nextDouble(), 1 / TAIL_ALPHA);
+    }
+    return Math.max(1, Math.min(MAX_LATENCY, Math.round(latency)));
+  }
+
+  /**
+   * Find the distribution by its command line name.
+   *
+   * @param name the name, such as "heavy-tail"
+   * @return the distribution
+   */
+  public static LatencyDistribution of(String name) {
+    return valueOf(name.toUpperCase().replace('-', '_'));
+  }
+}
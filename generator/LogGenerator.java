@@ -0,0 +1,358 @@
+package generator;
+
+import argparser.ArgParser;
+import argparser.CmdLineExceptions;
+import argparser.Option;
+import argparser.Option.OptionBuilder;
+import argparser.Options;
+import gzip.BlockGzip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The synthetic raw log generator. It writes a POST and a GET raw file in the
+ * "timestamp","method","latency","status" layout that the processor reads. The run is cut into
+ * blocks of whole seconds which worker threads encode into large direct buffers, and the blocks
+ * are written to the file in order. Every second draws from its own seeded random source, so a
+ * seed always gives the same files whatever the thread count. With --gzip the worker threads
+ * also deflate their blocks into block-gzip members.
+ */
+public class LogGenerator {
+
+  private static final int BLOCK_BYTES = 8 << 20;
+  private static final int MAX_LINE = 64;
+  private static final int MILLIS = 1000;
+  private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+  private static final short OK = 200;
+  private static final short ERROR = 500;
+  private static final String[] METHODS = {"POST", "GET"};
+  private static Options options;
+  private static final String NUM_REGEX = "^[0-9]+$";
+  private static final String RATIO_REGEX = "^(0(\\.[0-9]+)?|1(\\.0+)?)$";
+  private static final String PREFIX_REGEX = "^(\\\\|\\/)?([\\w-]+(\\\\|\\/))*[\\w-]+$";
+  private static final String PROFILE_REGEX = "^(ramp|plateau|spikes)$";
+  private static final String LATENCY_REGEX = "^(lognormal|bimodal|heavy-tail)$";
+
+  private String prefix;
+  private int duration;
+  private long rate;
+  private RateProfile profile;
+  private LatencyDistribution distribution;
+  private double median;
+  private double errorRatio;
+  private long seed;
+  private long startMillis;
+  private int threads;
+  private boolean compressed;
+
+  static {
+    options = new Options();
+    options.addOption(new OptionBuilder("--prefix").setRequired().hasSubOption()
+        .setSubOptionRegex(PREFIX_REGEX).setDesc(
+            "Required argument that gives the output prefix, the files are <prefix>-POSTraw.csv "
+                + "and <prefix>-GETraw.csv.").build());
+    options.addOption(new OptionBuilder("--duration").hasSubOption().setSubOptionRegex(NUM_REGEX)
+        .setDesc("Optional argument that gives the run length in seconds (default 600).").build());
+    options.addOption(new OptionBuilder("--rate").hasSubOption().setSubOptionRegex(NUM_REGEX)
+        .setDesc("Optional argument that gives the peak requests per second of each method "
+            + "(default 10000).").build());
+    options.addOption(new OptionBuilder("--profile").hasSubOption()
+        .setSubOptionRegex(PROFILE_REGEX).setDesc(
+            "Optional argument that gives the rate profile: ramp, plateau or spikes "
+                + "(default ramp).").build());
+    options.addOption(new OptionBuilder("--latency").hasSubOption()
+        .setSubOptionRegex(LATENCY_REGEX).setDesc(
+            "Optional argument that gives the latency distribution: lognormal, bimodal or "
+                + "heavy-tail (default lognormal).").build());
+    options.addOption(new OptionBuilder("--median").hasSubOption().setSubOptionRegex(NUM_REGEX)
+        .setDesc("Optional argument that gives the median latency in ms (default 150).").build());
+    options.addOption(new OptionBuilder("--error-ratio").hasSubOption()
+        .setSubOptionRegex(RATIO_REGEX).setDesc(
+            "Optional argument that gives the share of requests answered with status 500 "
+                + "(default 0).").build());
+    options.addOption(new OptionBuilder("--seed").hasSubOption().setSubOptionRegex(NUM_REGEX)
+        .setDesc("Optional argument that gives the random seed (default 1).").build());
+    options.addOption(new OptionBuilder("--start").hasSubOption().setSubOptionRegex(NUM_REGEX)
+        .setDesc("Optional argument that gives the first timestamp in epoch ms "
+            + "(default 1541656453000).").build());
+    options.addOption(new OptionBuilder("--threads").hasSubOption().setSubOptionRegex(NUM_REGEX)
+        .setDesc("Optional argument that gives the encoding threads (default all cores).")
+        .build());
+    options.addOption(new OptionBuilder("--gzip").setDesc(
+        "Optional argument that writes block-gzipped files, <prefix>-POSTraw.csv.gz and "
+            + "<prefix>-GETraw.csv.gz, which the processor inflates in parallel.").build());
+    options.addExample("--prefix filedir/synthetic --duration 3600 --rate 50000");
+    options.addExample("--prefix filedir/spiky --profile spikes --latency heavy-tail "
+        + "--error-ratio 0.01 --seed 7");
+    options.addExample("--prefix filedir/compressed --duration 3600 --gzip");
+    options.generateUsage();
+  }
+
+  /**
+   * Instantiates a new Log generator.
+   *
+   * @param prefix the output prefix
+   * @param duration the run length in seconds
+   * @param rate the peak requests per second of each method
+   * @param profile the rate profile
+   * @param distribution the latency distribution
+   * @param median the median latency in ms
+   * @param errorRatio the share of failed requests
+   * @param seed the random seed
+   * @param startMillis the first timestamp in epoch ms
+   * @param threads the encoding threads
+   * @param compressed true to write block-gzipped files
+   */
+  public LogGenerator(String prefix, int duration, long rate, RateProfile profile,
+      LatencyDistribution distribution, double median, double errorRatio, long seed,
+      long startMillis, int threads, boolean compressed) {
+    this.prefix = prefix;
+    this.duration = duration;
+    this.rate = rate;
+    this.profile = profile;
+    this.distribution = distribution;
+    this.median = median;
+    this.errorRatio = errorRatio;
+    this.seed = seed;
+    this.startMillis = startMillis;
+    this.threads = Math.max(1, threads);
+    this.compressed = compressed;
+  }
+
+  /**
+   * The entry point of the generator.
+   *
+   * @param args the input arguments
+   */
+  public static void main(String[] args) {
+    try {
+      Map<String, Option> parsed = new ArgParser(args, options).parse();
+      new LogGenerator(value(parsed, "--prefix", null),
+          Integer.parseInt(value(parsed, "--duration", "600")),
+          Long.parseLong(value(parsed, "--rate", "10000")),
+          RateProfile.of(value(parsed, "--profile", "ramp")),
+          LatencyDistribution.of(value(parsed, "--latency", "lognormal")),
+          Double.parseDouble(value(parsed, "--median", "150")),
+          Double.parseDouble(value(parsed, "--error-ratio", "0")),
+          Long.parseLong(value(parsed, "--seed", "1")),
+          Long.parseLong(value(parsed, "--start", "1541656453000")),
+          Integer.parseInt(value(parsed, "--threads",
+              String.valueOf(Runtime.getRuntime().availableProcessors()))),
+          parsed.containsKey("--gzip")).generate();
+    } catch (CmdLineExceptions ex) {
+      System.out.println(ex.getMessage());
+      System.out.println(options.getUsage());
+    } catch (IOException | NumberFormatException ex) {
+      System.out.println("ERROR: something went wrong: " + ex.getMessage());
+    }
+  }
+
+  /**
+   * Generate the POST and the GET raw file.
+   *
+   * @throws IOException if a file cannot be written
+   */
+  public void generate() throws IOException {
+    for (int i = 0; i < METHODS.length; i++) {
+      generateFile(prefix + "-" + METHODS[i] + (compressed ? "raw.csv.gz" : "raw.csv"), METHODS[i],
+          seed * SEED_STRIDE + i);
+    }
+  }
+
+  /**
+   * Helper function that generates one raw file. At most two blocks per thread are in flight,
+   * each holding a buffer of the pool until the writer has drained it. Compressed blocks are
+   * deflated by their own task and hand their buffer back at once.
+   *
+   * @param fileName the file to write
+   * @param method the request method of every line
+   * @param fileSeed the seed of this file
+   * @throws IOException if the file cannot be written
+   */
+  private void generateFile(String fileName, String method, long fileSeed) throws IOException {
+    long begin = System.currentTimeMillis();
+    long[] counts = profile.plan(duration, rate, new Random(fileSeed));
+    int inFlight = threads * 2;
+    BlockingQueue<ByteBuffer> pool = new ArrayBlockingQueue<>(inFlight);
+    for (int i = 0; i < inFlight; i++) {
+      pool.add(ByteBuffer.allocateDirect(BLOCK_BYTES));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    Deque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+    byte[] methodBytes = method.getBytes("US-ASCII");
+    long lines = 0;
+    long bytes = 0;
+    try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      int second = 0;
+      while (second < duration || !pending.isEmpty()) {
+        while (second < duration && pending.size() < inFlight) {
+          int from = second;
+          long size = counts[second++] * MAX_LINE;
+          while (second < duration && size + counts[second] * MAX_LINE <= BLOCK_BYTES) {
+            size += counts[second++] * MAX_LINE;
+          }
+          for (int i = from; i < second; i++) {
+            lines += counts[i];
+          }
+          pending.add(executor.submit(
+              new Block(methodBytes, counts, from, second, fileSeed, size, pool)));
+        }
+        ByteBuffer block = pending.poll().get();
+        block.flip();
+        while (block.hasRemaining()) {
+          bytes += channel.write(block);
+        }
+        if (block.isDirect()) {
+          block.clear();
+          pool.add(block);
+        }
+      }
+      if (compressed) {
+        ByteBuffer eof = BlockGzip.endOfFile();
+        while (eof.hasRemaining()) {
+          bytes += channel.write(eof);
+        }
+      }
+    } catch (InterruptedException ex) {
+      throw new IOException(ex.getMessage());
+    } catch (ExecutionException ex) {
+      throw new IOException(ex.getCause().getMessage());
+    } finally {
+      executor.shutdownNow();
+    }
+    System.out.println("Generate: " + fileName + " (" + lines + " lines, " + bytes + " bytes in "
+        + (System.currentTimeMillis() - begin) + " ms)");
+  }
+
+  /**
+   * Helper function that reads an option value.
+   *
+   * @param parsed the parsed options
+   * @param name the option name
+   * @param fallback the value without the option
+   * @return the value
+   */
+  private static String value(Map<String, Option> parsed, String name, String fallback) {
+    return parsed.containsKey(name) ? parsed.get(name).getSubOptions().get(0) : fallback;
+  }
+
+  /**
+   * The task that encodes a block of whole seconds into one buffer.
+   */
+  private class Block implements Callable<ByteBuffer> {
+
+    private byte[] method;
+    private long[] counts;
+    private int from;
+    private int to;
+    private long fileSeed;
+    private long size;
+    private BlockingQueue<ByteBuffer> pool;
+    private byte[] digits = new byte[20];
+
+    /**
+     * Instantiates a new Block.
+     *
+     * @param method the request method
+     * @param counts the planned request count of every second
+     * @param from the first second of the block
+     * @param to the end second of the block, exclusive
+     * @param fileSeed the seed of the file
+     * @param size the largest size the block can take
+     * @param pool the pool of buffers
+     */
+    Block(byte[] method, long[] counts, int from, int to, long fileSeed, long size,
+        BlockingQueue<ByteBuffer> pool) {
+      this.method = method;
+      this.counts = counts;
+      this.from = from;
+      this.to = to;
+      this.fileSeed = fileSeed;
+      this.size = size;
+      this.pool = pool;
+    }
+
+    @Override
+    public ByteBuffer call() throws InterruptedException {
+      //a single second too busy for a pooled buffer gets a buffer of its own.
+      ByteBuffer buffer = size <= BLOCK_BYTES ? pool.take() : ByteBuffer.allocate((int) size);
+      int[] perMilli = new int[MILLIS];
+      for (int second = from; second < to; second++) {
+        Random random = new Random(fileSeed + (second + 1) * SEED_STRIDE);
+        //spread the requests over the milliseconds, then emit them in time order.
+        Arrays.fill(perMilli, 0);
+        for (long i = 0; i < counts[second]; i++) {
+          perMilli[random.nextInt(MILLIS)]++;
+        }
+        long base = startMillis + (long) second * MILLIS;
+        for (int milli = 0; milli < MILLIS; milli++) {
+          for (int i = 0; i < perMilli[milli]; i++) {
+            short status = random.nextDouble() < errorRatio ? ERROR : OK;
+            writeLine(buffer, base + milli, distribution.sample(median, random), status);
+          }
+        }
+      }
+      if (!compressed) {
+        return buffer;
+      }
+      buffer.flip();
+      ByteBuffer members = BlockGzip.compress(buffer);
+      if (buffer.isDirect()) {
+        buffer.clear();
+        pool.add(buffer);
+      }
+      return members;
+    }
+
+    /**
+     * Helper function that encodes one line.
+     *
+     * @param buffer the buffer
+     * @param timestamp the timestamp in epoch ms
+     * @param latency the latency in ms
+     * @param status the status code
+     */
+    private void writeLine(ByteBuffer buffer, long timestamp, long latency, short status) {
+      buffer.put((byte) '"');
+      writeNumber(buffer, timestamp);
+      buffer.put((byte) '"').put((byte) ',').put((byte) '"').put(method).put((byte) '"')
+          .put((byte) ',').put((byte) '"');
+      writeNumber(buffer, latency);
+      buffer.put((byte) '"').put((byte) ',').put((byte) '"');
+      writeNumber(buffer, status);
+      buffer.put((byte) '"').put((byte) '\n');
+    }
+
+    /**
+     * Helper function that encodes a non-negative number in decimal.
+     *
+     * @param buffer the buffer
+     * @param value the number
+     */
+    private void writeNumber(ByteBuffer buffer, long value) {
+      int position = digits.length;
+      do {
+        digits[--position] = (byte) ('0' + value % 10);
+        value /= 10;
+      } while (value > 0);
+      buffer.put(digits, position, digits.length - position);
+    }
+  }
+}
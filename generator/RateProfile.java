@@ -0,0 +1,72 @@
+package generator;
+
+import java.util.Random;
+
+/**
+ * The shape of the request rate over the length of a generated run.
+ */
+public enum RateProfile {
+
+  /**
+   * The rate climbs linearly to the peak over the first quarter of the run, holds and falls back
+   * over the last quarter, which gives the peak phase analysis a clear warm up and cool down.
+   */
+  RAMP,
+
+  /**
+   * The rate stays at the peak for the whole run.
+   */
+  PLATEAU,
+
+  /**
+   * The rate idles at a quarter of the peak, with short bursts at the peak that start at random
+   * seconds.
+   */
+  SPIKES;
+
+  private static final double SPIKE_CHANCE = 0.02;
+  private static final int SPIKE_MIN_SECONDS = 3;
+  private static final int SPIKE_MAX_SECONDS = 10;
+  private static final double NOISE = 0.05;
+
+  /**
+   * Plan the request count of every second of a run. The counts only depend on the arguments, so
+   * the same seed always plans the same run.
+   *
+   * @param duration the length of the run in seconds
+   * @param peak the peak rate in requests per second
+   * @param random the random source of the noise and spikes
+   * @return the request count of each second
+   */
+  public long[] plan(int duration, long peak, Random random) {
+    long[] counts = new long[duration];
+    int spikeLeft = 0;
+    for (int second = 0; second < duration; second++) {
+      double rate;
+      if (this == PLATEAU) {
+        rate = peak;
+      } else if (this == RAMP) {
+        double edge = Math.max(1, duration / 4.0);
+        rate = peak * Math.min(1.0, Math.min(second + 1, duration - second) / edge);
+      } else {
+        if (spikeLeft == 0 && random.nextDouble() < SPIKE_CHANCE) {
+          spikeLeft = SPIKE_MIN_SECONDS + random.nextInt(SPIKE_MAX_SECONDS - SPIKE_MIN_SECONDS + 1);
+        }
+        rate = spikeLeft > 0 ? peak : peak / 4.0;
+        spikeLeft = Math.max(0, spikeLeft - 1);
+      }
+      counts[second] = Math.max(0, Math.round(rate * (1 + NOISE * random.nextGaussian())));
+    }
+    return counts;
+  }
+
+  /**
+   * Find the profile by its command line name.
+   *
+   * @param name the name, such as "ramp"
+   * @return the profile
+   */
+  public static RateProfile of(String name) {
+    return valueOf(name.toUpperCase());
+  }
+}
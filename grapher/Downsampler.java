@@ -0,0 +1,60 @@
+package grapher;
+
+/**
+ * Helper to reduce a series to what a chart of a given width can show.
+ */
+final class Downsampler {
+
+  private Downsampler() {
+  }
+
+  /**
+   * Splits the x range into columns and keeps the points with the lowest and the highest y of
+   * every column, in their original order, so spikes and dips survive. Series that already fit are
+   * kept whole.
+   *
+   * @param xs the x values, sorted ascending
+   * @param ys the y values
+   * @param columns the number of columns
+   * @return the indexes of the points to keep, ascending
+   */
+  static int[] minMax(double[] xs, double[] ys, int columns) {
+    int length = xs.length;
+    if (length <= columns * 2) {
+      int[] all = new int[length];
+      for (int i = 0; i < length; i++) {
+        all[i] = i;
+      }
+      return all;
+    }
+    double first = xs[0];
+    double width = (xs[length - 1] - first) / columns;
+    int[] kept = new int[columns * 2];
+    int size = 0;
+    int start = 0;
+    while (start < length) {
+      int column = width == 0 ? 0 : (int) Math.min(columns - 1, (xs[start] - first) / width);
+      int min = start;
+      int max = start;
+      int end = start + 1;
+      while (end < length && (width == 0 ? 0
+          : (int) Math.min(columns - 1, (xs[end] - first) / width)) == column) {
+        if (ys[end] < ys[min]) {
+          min = end;
+        }
+        if (ys[end] > ys[max]) {
+          max = end;
+        }
+        end++;
+      }
+      kept[size++] = Math.min(min, max);
+      if (min != max) {
+        kept[size++] = Math.max(min, max);
+      }
+      start = end;
+    }
+    int[] result = new int[size];
+    System.arraycopy(kept, 0, result, 0, size);
+    return result;
+  }
+}
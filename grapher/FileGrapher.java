@@ -1,35 +1,100 @@
 package grapher;
 
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
-import org.jfree.data.xy.XYDataset;
-import org.jfree.ui.ApplicationFrame;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
 
+import java.io.File;
 import java.io.IOException;
 
 /**
- * Main File Grapher.
+ * Main File Grapher. A grapher is a task that renders one chart straight to a PNG file without
+ * any AWT frame, so it runs on servers without a display. The points are copied when the grapher
+ * is created, and series wider than the chart are reduced to the minimum and maximum of every
+ * pixel column before they are plotted.
  */
-public abstract class FileGrapher extends ApplicationFrame {
+public abstract class FileGrapher implements Runnable {
 
   static final int CHARTWIDTH = 1000;
   static final int CHARTHEIGHT = 500;
 
+  static {
+    System.setProperty("java.awt.headless", "true");
+  }
+
+  private String chartTitle;
+  private String xLabel;
+  private String yLabel;
+  private double[] xs;
+  private double[] ys;
+
   /**
    * Constructor for the class.
-   * @param applicationTitle name of the application
+   * @param chartTitle title of the chart, also the image path without extension
+   * @param xLabel domain axis label
+   * @param yLabel range axis label
+   * @param xs the x values, sorted ascending
+   * @param ys the y values
+   */
+  public FileGrapher(String chartTitle, String xLabel, String yLabel, double[] xs, double[] ys) {
+    this.chartTitle = chartTitle;
+    this.xLabel = xLabel;
+    this.yLabel = yLabel;
+    this.xs = xs;
+    this.ys = ys;
+  }
+
+  /**
+   * Sets one point of the series.
+   * @param index the index of the point
+   * @param x the x value
+   * @param y the y value
    */
-  public FileGrapher(String applicationTitle) {
-    super(applicationTitle);
+  protected void setPoint(int index, double x, double y) {
+    xs[index] = x;
+    ys[index] = y;
   }
 
   /**
    * Create a chart and save the image.
-   * @param dataset data to plot
-   * @param chartTitle title of the chart
    * @return a plotted chart
-   * @throws NumberFormatException avoid parsing invalid string
    * @throws IOException if destination dose not exist
    */
-  protected abstract JFreeChart createChart(XYDataset dataset, String chartTitle)
-      throws NumberFormatException, IOException;
+  public JFreeChart createChart() throws IOException {
+    String[] paths = chartTitle.split("/");
+    String title = paths[paths.length - 1];
+    XYSeries seriesX = new XYSeries("X", false, true);
+    int[] points = Downsampler.minMax(xs, ys, CHARTWIDTH / 2);
+    for (int index : points) {
+      seriesX.add(xs[index], ys[index], false);
+    }
+    XYSeriesCollection dataset = new XYSeriesCollection();
+    dataset.addSeries(seriesX);
+    JFreeChart chart = ChartFactory.createXYLineChart(title, // chart title
+        xLabel, // domain axis label
+        yLabel, // range axis label
+        dataset, // data
+        PlotOrientation.VERTICAL, // the plot orientation
+        true, // legend
+        false, // tooltips
+        false); // urls
+    ChartUtilities.saveChartAsPNG(new File(chartTitle + ".png"), chart, CHARTWIDTH, CHARTHEIGHT);
+    return chart;
+  }
+
+  /**
+   * The run method implements the Runnable interface.
+   */
+  @Override
+  public void run() {
+    try {
+      createChart();
+      System.out.println("Generate: " + chartTitle + ".png");
+    } catch (IOException ex) {
+      System.out.println("ERROR: something went wrong: " + ex.getMessage());
+    }
+  }
 }
@@ -0,0 +1,101 @@
+package gzip;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Helper to compress data into block-gzip members: independent gzip members of at most 64 KB
+ * whose header carries the member size in a "BC" extra subfield, in the layout of bgzip. Any
+ * gzip reader inflates the concatenated members as one stream, while GzipMembers finds the
+ * member boundaries for parallel readers.
+ */
+public class BlockGzip {
+
+  /**
+   * The uncompressed bytes of one member, small enough to fit stored when deflate does not help.
+   */
+  public static final int BLOCK_INPUT = 0xff00;
+  private static final int MAX_MEMBER = 1 << 16;
+  private static final int HEADER_SIZE = 18;
+  private static final int TRAILER_SIZE = 8;
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff,
+      6, 0, 'B', 'C', 2, 0};
+
+  /**
+   * Compress the remaining bytes of a buffer into members.
+   *
+   * @param data the data, read from its position to its limit
+   * @return the buffer filled with the members up to its position
+   */
+  public static ByteBuffer compress(ByteBuffer data) {
+    int blocks = Math.max(1, (data.remaining() + BLOCK_INPUT - 1) / BLOCK_INPUT);
+    ByteBuffer output = ByteBuffer.allocate(blocks * MAX_MEMBER).order(ByteOrder.LITTLE_ENDIAN);
+    byte[] input = new byte[BLOCK_INPUT];
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      while (data.hasRemaining()) {
+        int length = Math.min(BLOCK_INPUT, data.remaining());
+        data.get(input, 0, length);
+        writeMember(output, deflater, input, length);
+      }
+    } finally {
+      deflater.end();
+    }
+    return output;
+  }
+
+  /**
+   * Gets the empty member that marks the end of a block-gzip file.
+   *
+   * @return the end-of-file member, ready to be written
+   */
+  public static ByteBuffer endOfFile() {
+    ByteBuffer output = ByteBuffer.allocate(MAX_MEMBER).order(ByteOrder.LITTLE_ENDIAN);
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      writeMember(output, deflater, new byte[0], 0);
+    } finally {
+      deflater.end();
+    }
+    output.flip();
+    return output;
+  }
+
+  /**
+   * Helper function that writes one member. Data that deflate cannot fit in a member is stored.
+   *
+   * @param output the output buffer
+   * @param deflater the deflater
+   * @param input the uncompressed bytes
+   * @param length the number of uncompressed bytes
+   */
+  private static void writeMember(ByteBuffer output, Deflater deflater, byte[] input,
+      int length) {
+    int start = output.position();
+    byte[] out = output.array();
+    int body = output.arrayOffset() + start + HEADER_SIZE;
+    int room = MAX_MEMBER - HEADER_SIZE - TRAILER_SIZE;
+    deflater.reset();
+    deflater.setInput(input, 0, length);
+    deflater.finish();
+    int compressed = deflater.deflate(out, body, room);
+    if (!deflater.finished()) {
+      //a stored block: final bit and type 0, then the length and its complement.
+      out[body] = 1;
+      out[body + 1] = (byte) length;
+      out[body + 2] = (byte) (length >>> 8);
+      out[body + 3] = (byte) ~length;
+      out[body + 4] = (byte) (~length >>> 8);
+      System.arraycopy(input, 0, out, body + 5, length);
+      compressed = length + 5;
+    }
+    CRC32 crc = new CRC32();
+    crc.update(input, 0, length);
+    int size = HEADER_SIZE + compressed + TRAILER_SIZE;
+    output.put(HEADER).putShort((short) (size - 1));
+    output.position(start + HEADER_SIZE + compressed);
+    output.putInt((int) crc.getValue()).putInt(length);
+  }
+}
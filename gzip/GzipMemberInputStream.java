@@ -0,0 +1,185 @@
+package gzip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * The stream that inflates a gzip file from a member boundary on. Block-gzip members are read
+ * whole into one array and inflated with a reused Inflater, and no read returns bytes of two
+ * members, so the reader can tell when the bytes it gets come from a member at or after the end
+ * of its range. A file whose first member does not carry its size is inflated as one stream
+ * through GZIPInputStream instead and never passes the end.
+ */
+public class GzipMemberInputStream extends InputStream {
+
+  private static final int MAX_MEMBER = 1 << 16;
+  private static final int STREAM_BUFFER = 1 << 16;
+  private static final int TRAILER_SIZE = 8;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+  private FileChannel channel;
+  private long end;
+  private long position;
+  private long memberStart;
+  private boolean inMember;
+  private int trailer;
+  private byte[] member = new byte[MAX_MEMBER];
+  private byte[] single = new byte[1];
+  private Inflater inflater = new Inflater(true);
+  private CRC32 crc = new CRC32();
+  private InputStream stream;
+
+  /**
+   * Instantiates a new GzipMemberInputStream.
+   *
+   * @param channel the channel of the gzip file
+   * @param begin the start of the first member to read
+   * @param end the end of the range, members starting here or later are beyond it
+   * @throws IOException if the file cannot be read
+   */
+  public GzipMemberInputStream(FileChannel channel, long begin, long end) throws IOException {
+    this.channel = channel;
+    this.position = begin;
+    this.memberStart = begin;
+    this.end = end;
+    if (begin < channel.size() && GzipMembers.memberSize(channel, begin) < 0) {
+      stream = new GZIPInputStream(Channels.newInputStream(channel.position(begin)),
+          STREAM_BUFFER);
+    }
+  }
+
+  /**
+   * Tells whether the bytes of the last read came from a member at or after the end of the range.
+   *
+   * @return true if the last read is beyond the end
+   */
+  public boolean isBeyondEnd() {
+    return stream == null && memberStart >= end;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    if (stream != null) {
+      return stream.read(buffer, offset, length);
+    }
+    while (true) {
+      if (!inMember && !nextMember()) {
+        return -1;
+      }
+      int read;
+      try {
+        read = inflater.inflate(buffer, offset, length);
+      } catch (DataFormatException ex) {
+        throw new ZipException("Corrupt gzip member at " + memberStart + ": " + ex.getMessage());
+      }
+      if (read > 0) {
+        crc.update(buffer, offset, read);
+        return read;
+      }
+      if (!inflater.finished()) {
+        throw new EOFException("Truncated gzip member at " + memberStart);
+      }
+      checkTrailer();
+      inMember = false;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    inflater.end();
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+  /**
+   * Helper function that reads the next member whole and hands its deflate data to the inflater.
+   *
+   * @return false at the end of the file
+   * @throws IOException if the member cannot be read or does not carry its size
+   */
+  private boolean nextMember() throws IOException {
+    if (position >= channel.size()) {
+      return false;
+    }
+    long size = GzipMembers.memberSize(channel, position);
+    if (size < 0 || size > MAX_MEMBER) {
+      throw new ZipException("No block-gzip member at " + position);
+    }
+    ByteBuffer buf = ByteBuffer.wrap(member, 0, (int) size);
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, position + buf.position()) < 0) {
+        throw new EOFException("Truncated gzip member at " + position);
+      }
+    }
+    int header = headerLength();
+    trailer = (int) size - TRAILER_SIZE;
+    inflater.reset();
+    inflater.setInput(member, header, trailer - header);
+    crc.reset();
+    memberStart = position;
+    position += size;
+    inMember = true;
+    return true;
+  }
+
+  /**
+   * Helper function that finds where the deflate data of the member starts.
+   *
+   * @return the length of the member header
+   */
+  private int headerLength() {
+    int flags = member[3];
+    int length = 10;
+    if ((flags & FEXTRA) != 0) {
+      length += 2 + ((member[length] & 0xff) | (member[length + 1] & 0xff) << 8);
+    }
+    if ((flags & FNAME) != 0) {
+      while (member[length++] != 0) {
+        continue;
+      }
+    }
+    if ((flags & FCOMMENT) != 0) {
+      while (member[length++] != 0) {
+        continue;
+      }
+    }
+    if ((flags & FHCRC) != 0) {
+      length += 2;
+    }
+    return length;
+  }
+
+  /**
+   * Helper function that checks the CRC and the size in the trailer of the member.
+   *
+   * @throws ZipException if the member does not match its trailer
+   */
+  private void checkTrailer() throws ZipException {
+    ByteBuffer buf = ByteBuffer.wrap(member, trailer, TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    if ((buf.getInt() & 0xffffffffL) != crc.getValue()
+        || (buf.getInt() & 0xffffffffL) != (inflater.getBytesWritten() & 0xffffffffL)) {
+      throw new ZipException("Corrupt gzip member at " + memberStart);
+    }
+  }
+}
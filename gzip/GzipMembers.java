@@ -0,0 +1,154 @@
+package gzip;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helper to find the members of gzip files. A block-gzipped file is a series of gzip members
+ * whose header carries the size of the member in a "BC" extra subfield, as written by bgzip and
+ * by BlockGzip, so the member boundaries are found by walking the headers without inflating
+ * anything. Any other gzip file can only be read as one stream.
+ */
+public class GzipMembers {
+
+  /**
+   * The suffix of compressed files.
+   */
+  public static final String SUFFIX = ".gz";
+  private static final int HEADER_SIZE = 12;
+  private static final int MAX_EXTRA = 0xffff;
+  private static final byte ID1 = 0x1f;
+  private static final byte ID2 = (byte) 0x8b;
+  private static final byte DEFLATE = 8;
+  private static final int FEXTRA = 4;
+  private static final byte SI1 = 'B';
+  private static final byte SI2 = 'C';
+
+  /**
+   * Tells whether a file is compressed by its name.
+   *
+   * @param fileName the file
+   * @return true for a .gz file
+   */
+  public static boolean isCompressed(String fileName) {
+    return fileName.endsWith(SUFFIX);
+  }
+
+  /**
+   * Gets the name of a file without the compression suffix, which outputs are named after.
+   *
+   * @param fileName the file
+   * @return the name without .gz
+   */
+  public static String stripSuffix(String fileName) {
+    return isCompressed(fileName)
+        ? fileName.substring(0, fileName.length() - SUFFIX.length()) : fileName;
+  }
+
+  /**
+   * Gets the size of the member that starts at a position.
+   *
+   * @param channel the channel of the gzip file
+   * @param position the start of the member
+   * @return the size of the member in bytes, or -1 if its header does not carry it
+   * @throws IOException if the file cannot be read
+   */
+  public static long memberSize(FileChannel channel, long position) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    if (!readFully(channel, header, position)) {
+      return -1;
+    }
+    if (header.get(0) != ID1 || header.get(1) != ID2 || header.get(2) != DEFLATE
+        || (header.get(3) & FEXTRA) == 0) {
+      return -1;
+    }
+    int extraLength = header.getShort(10) & MAX_EXTRA;
+    ByteBuffer extra = ByteBuffer.allocate(extraLength).order(ByteOrder.LITTLE_ENDIAN);
+    if (!readFully(channel, extra, position + HEADER_SIZE)) {
+      return -1;
+    }
+    int offset = 0;
+    while (offset + 4 <= extraLength) {
+      int length = extra.getShort(offset + 2) & MAX_EXTRA;
+      if (extra.get(offset) == SI1 && extra.get(offset + 1) == SI2 && length == 2
+          && offset + 6 <= extraLength) {
+        return (extra.getShort(offset + 4) & MAX_EXTRA) + 1L;
+      }
+      offset += 4 + length;
+    }
+    return -1;
+  }
+
+  /**
+   * Split a gzip file into ranges of whole members of about the same compressed size. A file
+   * whose members do not carry their size gets a single range, and the other ranges are empty.
+   *
+   * @param fileName the gzip file
+   * @param parts the number of ranges
+   * @return the begin indexes and the end indexes of the ranges
+   * @throws IOException if the file cannot be read
+   */
+  public static long[][] split(String fileName, int parts) throws IOException {
+    long[][] ranges = new long[2][parts];
+    try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+      FileChannel channel = file.getChannel();
+      long length = channel.size();
+      List<Long> starts = new ArrayList<>();
+      long position = 0;
+      while (position < length) {
+        long size = memberSize(channel, position);
+        if (size <= 0) {
+          starts.clear();
+          break;
+        }
+        starts.add(position);
+        position += size;
+      }
+      int member = 0;
+      for (int n = 0; n < parts; n++) {
+        ranges[0][n] = n == 0 ? 0 : ranges[1][n - 1];
+        long target = length * (n + 1) / parts;
+        if (starts.isEmpty() || n == parts - 1) {
+          ranges[1][n] = length;
+          continue;
+        }
+        while (member < starts.size() && starts.get(member) < target) {
+          member++;
+        }
+        ranges[1][n] = member < starts.size() ? Math.max(ranges[0][n], starts.get(member))
+            : length;
+      }
+      if (starts.isEmpty()) {
+        for (int n = 1; n < parts; n++) {
+          ranges[0][n] = length;
+        }
+      }
+    }
+    return ranges;
+  }
+
+  /**
+   * Helper function that fills a buffer from a position.
+   *
+   * @param channel the channel
+   * @param buffer the buffer
+   * @param position the position
+   * @return false if the file ends first
+   * @throws IOException if the file cannot be read
+   */
+  private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position + buffer.position());
+      if (read < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,144 @@
+package handler;
+
+import argparser.Option;
+import argparser.Option.OptionBuilder;
+import gzip.GzipMembers;
+import pool.Job;
+import pool.ThreadPool;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Handler to analyse a whole directory of test runs in one JVM. It pairs every POST raw file with
+ * its GET raw file and passes each pair down the chain as if it had been given with --POST and
+ * --GET, so every run gets the same outputs on one shared thread pool.
+ */
+public class BatchHandler extends TaskHandler {
+
+  private static final String POST_SUFFIX = "POSTraw.csv";
+  private static final String GET_SUFFIX = "GETraw.csv";
+  private static final String DEFAULT_GLOB =
+      "*" + POST_SUFFIX + "{," + GzipMembers.SUFFIX + "}";
+  private static final int RUNS_IN_FLIGHT = 2;
+
+  /**
+   * Expand --runs into POST/GET pairs and handle them one after another, keeping at most
+   * RUNS_IN_FLIGHT runs ingesting at once. Without --runs the options are passed on unchanged.
+   *
+   * @param options parsed args
+   * @throws IOException when I/O exception occurs
+   */
+  @Override
+  public void handleRequest(Map<String, Option> options) throws IOException {
+    if (!options.containsKey("--runs")) {
+      if (this.nextHandler != null) {
+        this.nextHandler.handleRequest(options);
+      }
+      return;
+    }
+    String pattern = options.get("--runs").getSubOptions().get(0);
+    List<String> postFiles = findRuns(pattern);
+    if (postFiles.isEmpty()) {
+      throw new IOException("No POST and GET raw file pairs found for " + pattern);
+    }
+    ThreadPool.setFilesInFlight(ThreadPool.getFilesInFlight() * RUNS_IN_FLIGHT);
+    Deque<Job[]> inFlight = new ArrayDeque<>();
+    try {
+      for (String postFile : postFiles) {
+        String getFile = postFile.replace(POST_SUFFIX, GET_SUFFIX);
+        System.out.println("Batch run: " + postFile + " " + getFile);
+        Map<String, Option> runOptions = new HashMap<>(options);
+        runOptions.put("--POST", fileOption("--POST", postFile));
+        runOptions.put("--GET", fileOption("--GET", getFile));
+        if (this.nextHandler != null) {
+          this.nextHandler.handleRequest(runOptions);
+        }
+        inFlight.addLast(new Job[]{JOBS.remove(postFile), JOBS.remove(getFile)});
+        if (inFlight.size() >= RUNS_IN_FLIGHT) {
+          awaitRun(inFlight.removeFirst());
+        }
+      }
+    } catch (InterruptedException ex) {
+      System.out.println(ex.getMessage());
+    }
+  }
+
+  /**
+   * Helper function that lists the POST raw files that have a GET raw file next to them. The
+   * pattern is either a directory or a glob on file names such as filedir/*POSTraw.csv; GET files
+   * matched by the glob are paired with their POST file. A gzip POST file is paired with a gzip GET
+   * file.
+   *
+   * @param pattern the directory or glob
+   * @return the sorted POST file names
+   * @throws IOException if the directory cannot be read
+   */
+  private List<String> findRuns(String pattern) throws IOException {
+    Path path = Paths.get(pattern);
+    Path dir;
+    String glob;
+    if (Files.isDirectory(path)) {
+      dir = path;
+      glob = DEFAULT_GLOB;
+    } else {
+      dir = path.getParent() == null ? Paths.get(".") : path.getParent();
+      glob = path.getFileName().toString();
+    }
+    TreeSet<String> postFiles = new TreeSet<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+      for (Path file : stream) {
+        String name = file.toString();
+        String suffix = GzipMembers.isCompressed(name) ? GzipMembers.SUFFIX : "";
+        name = name.substring(0, name.length() - suffix.length());
+        if (name.endsWith(GET_SUFFIX)) {
+          name = name.substring(0, name.length() - GET_SUFFIX.length()) + POST_SUFFIX;
+        }
+        if (name.endsWith(POST_SUFFIX)
+            && Files.isRegularFile(Paths.get(name + suffix))
+            && Files.isRegularFile(Paths.get(name.replace(POST_SUFFIX, GET_SUFFIX) + suffix))) {
+          postFiles.add(name + suffix);
+        }
+      }
+    }
+    return Collections.unmodifiableList(new ArrayList<>(postFiles));
+  }
+
+  /**
+   * Helper function that builds a file option for one run.
+   *
+   * @param name the option name
+   * @param fileName the file
+   * @return the option
+   */
+  private static Option fileOption(String name, String fileName) {
+    Option option = new OptionBuilder(name).hasSubOption().build();
+    option.getSubOptions().add(fileName);
+    return option;
+  }
+
+  /**
+   * Helper function that waits until the consumers of a run's jobs have stopped.
+   *
+   * @param jobs the jobs of the run
+   * @throws InterruptedException if the thread is interrupted
+   */
+  private static void awaitRun(Job[] jobs) throws InterruptedException {
+    for (Job job : jobs) {
+      if (job != null) {
+        job.getConsumerLatch().await();
+      }
+    }
+  }
+}
@@ -1,9 +1,12 @@
 package handler;
 
 import argparser.Option;
+import pool.Job;
+import pool.Stage;
 import pool.ThreadPool;
 import writer.CombinedWriter;
 import writer.LatencyWriter;
+import writer.LiveResultWriter;
 import writer.ReqResultWriter;
 
 import java.io.IOException;
@@ -24,11 +27,17 @@ public class FileHandler extends TaskHandler {
   public void handleRequest(Map<String, Option> options) throws IOException {
     String postFile = options.get("--POST").getSubOptions().get(0);
     String getFile = options.get("--GET").getSubOptions().get(0);
-    ThreadPool.addThread(new ReqResultWriter(postFile, THROUGHPUT_POST_MAP));
-    ThreadPool.addThread(new ReqResultWriter(getFile, THROUGHPUT_GET_MAP));
-    ThreadPool.addThread(new CombinedWriter(postFile, THROUGHPUT_POST_MAP, THROUGHPUT_GET_MAP));
-    ThreadPool.addThread(new LatencyWriter(postFile, LATENCY_POST_MAP));
-    ThreadPool.addThread(new LatencyWriter(getFile, LATENCY_GET_MAP));
+    Job postJob = JOBS.get(postFile);
+    Job getJob = JOBS.get(getFile);
+    ThreadPool.addThread(Stage.WRITE, new ReqResultWriter(postJob));
+    ThreadPool.addThread(Stage.WRITE, new ReqResultWriter(getJob));
+    ThreadPool.addThread(Stage.WRITE, new CombinedWriter(postJob, getJob));
+    ThreadPool.addThread(Stage.WRITE, new LatencyWriter(postJob));
+    ThreadPool.addThread(Stage.WRITE, new LatencyWriter(getJob));
+    if (options.containsKey("--follow")) {
+      ThreadPool.addThread(Stage.CONTROL, new LiveResultWriter(postJob));
+      ThreadPool.addThread(Stage.CONTROL, new LiveResultWriter(getJob));
+    }
     if (this.nextHandler != null) {
       this.nextHandler.handleRequest(options);
     }
@@ -1,12 +1,11 @@
 package handler;
 
 import argparser.Option;
-import bucket.LatencyBucket;
-import bucket.ThroughputBucket;
+import pool.Job;
 
 import java.io.IOException;
 import java.util.Map;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract class for args handler.
@@ -14,14 +13,7 @@ import java.util.concurrent.ConcurrentSkipListMap;
 public abstract class TaskHandler {
 
   protected TaskHandler nextHandler;
-  protected static final ConcurrentSkipListMap<Long, ThroughputBucket> THROUGHPUT_POST_MAP
-      = new ConcurrentSkipListMap<>();
-  protected static final ConcurrentSkipListMap<Long, ThroughputBucket> THROUGHPUT_GET_MAP
-      = new ConcurrentSkipListMap<>();
-  protected static final ConcurrentSkipListMap<Integer, LatencyBucket> LATENCY_POST_MAP
-      = new ConcurrentSkipListMap<>();
-  protected static final ConcurrentSkipListMap<Integer, LatencyBucket> LATENCY_GET_MAP
-      = new ConcurrentSkipListMap<>();
+  protected static final Map<String, Job> JOBS = new ConcurrentHashMap<>();
 
   /**
    * Set next handler.
@@ -1,23 +1,49 @@
 package handler;
 
+import argparser.CmdLineExceptions.IllegalValueException;
 import argparser.Option;
+import bucket.DenseThroughputStore;
+import bucket.LatencyStore;
+import bucket.LogLinearLatencyStore;
+import bucket.SkipListLatencyStore;
+import bucket.SkipListThroughputStore;
+import bucket.ThroughputStore;
+import cache.ColumnarCache;
+import cache.ColumnarCacheWriter;
 import consumer.ComboConsumer;
 import consumer.LatencyConsumer;
+import consumer.LatencySink;
+import consumer.MulticastConsumer;
+import consumer.ReqConsumer;
 import consumer.ThroughputConsumer;
+import consumer.ThroughputSink;
+import gzip.GzipMembers;
+import mapreduce.MapReduceJob;
+import metrics.MetricsReporter;
+import metrics.PipelineMetrics;
+import pool.Backend;
+import pool.Job;
+import pool.Stage;
 import pool.ThreadPool;
 import producer.DoubleQueuesProducer;
+import producer.PoisonPillProducer;
+import producer.ReqProducer;
 import producer.SingleQueueProducer;
+import splitter.ChunkScheduler;
 import splitter.FileSplitter;
 import splitter.InfoGetter;
-import timer.Timer;
+import timer.PhaseProfiler;
+import timer.PhaseProfiler.Phase;
+import transport.MeteredTransport;
+import transport.QueueTransport;
+import transport.RingBufferTransport;
+import transport.Transport;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Help to determine the way to handle multiple thread.
@@ -25,15 +51,47 @@ import java.util.concurrent.ConcurrentSkipListMap;
 public class ThreadHandler extends TaskHandler {
 
   private static final int CAPACITY = 50000;
+  private static final long FIRST_LINE_POLL_MILLIS = 500;
+  private static final int CACHE_BATCH = 8192;
+  private static final int RANGES_PER_THREAD = 4;
+  private static final long MIN_RANGE_BYTES = 1 << 20;
+  private static final String[] UNCOMPRESSED_OPTIONS = {"--split-multireader", "--mmap",
+      "--chunk-mb", "--follow"};
+  private static final String[] PIPELINE_OPTIONS = {"--split-multireader", "--combo-consumer",
+      "--multicast-consumer", "--mmap", "--local-aggregation", "--batch", "--transport", "--cache",
+      "--chunk-mb", "--follow", "--metrics", "--consumers"};
   private ReaderType readerType;
   private ConsumerType consumerType = ConsumerType.SPECIAL_CONSUMER;
+  private boolean mapped;
+  private boolean compressed;
+  private boolean localAggregation;
+  private int batchSize;
+  private boolean dense;
+  private int latencyDigits;
+  private boolean sketched;
+  private boolean cached;
+  private ColumnarCache cache;
+  private ColumnarCacheWriter cacheWriter;
+  private long chunkBytes;
+  private ChunkScheduler scheduler;
+  private long followMillis;
+  private TransportType transportType = TransportType.QUEUE;
+  private EngineType engineType = EngineType.PIPELINE;
 
   public enum ReaderType {
     SPLIT_READER, MULTI_READER
   }
 
   public enum ConsumerType {
-    SPECIAL_CONSUMER, COMBO_CONSUMER;
+    SPECIAL_CONSUMER, COMBO_CONSUMER, MULTICAST_CONSUMER;
+  }
+
+  public enum TransportType {
+    QUEUE, RING
+  }
+
+  public enum EngineType {
+    PIPELINE, MAPREDUCE
   }
 
   /**
@@ -55,66 +113,166 @@ public class ThreadHandler extends TaskHandler {
     }
     if (options.containsKey("--combo-consumer")) {
       consumerType = ConsumerType.COMBO_CONSUMER;
+    } else if (options.containsKey("--multicast-consumer")) {
+      consumerType = ConsumerType.MULTICAST_CONSUMER;
+    }
+    if (options.containsKey("--engine")) {
+      engineType = EngineType
+          .valueOf(options.get("--engine").getSubOptions().get(0).toUpperCase());
+      for (String option : PIPELINE_OPTIONS) {
+        if (engineType == EngineType.MAPREDUCE && options.containsKey(option)) {
+          throw new IllegalValueException(option + " only applies to the pipeline engine.");
+        }
+      }
+    }
+    if (options.containsKey("--consumers")) {
+      int consumers = Integer.parseInt(options.get("--consumers").getSubOptions().get(0));
+      if (consumers <= 0) {
+        throw new IllegalValueException("--consumers must be greater than 0.");
+      }
+      ThreadPool.setConsumerThreads(consumers);
+    }
+    if (options.containsKey("--executors")) {
+      for (String stage : options.get("--executors").getSubOptions().get(0).split(",")) {
+        String[] parts = stage.split("[=:]");
+        ThreadPool.setBackend(Stage.valueOf(parts[0].toUpperCase()), Backend.of(parts[1]),
+            parts.length > 2 ? Integer.parseInt(parts[2]) : 0);
+      }
+    }
+    mapped = options.containsKey("--mmap");
+    localAggregation = options.containsKey("--local-aggregation");
+    if (options.containsKey("--transport")) {
+      transportType = TransportType
+          .valueOf(options.get("--transport").getSubOptions().get(0).toUpperCase());
     }
-    try {
-      String postFile = options.get("--POST").getSubOptions().get(0);
-      generateMap(THROUGHPUT_POST_MAP, LATENCY_POST_MAP, postFile);
-      ThreadPool.getConsumerLatch().await();
-      String getFile = options.get("--GET").getSubOptions().get(0);
-      generateMap(THROUGHPUT_GET_MAP, LATENCY_GET_MAP, getFile);
-      if (this.nextHandler != null) {
-        this.nextHandler.handleRequest(options);
+    if (options.containsKey("--batch")) {
+      batchSize = Integer.parseInt(options.get("--batch").getSubOptions().get(0));
+      if (batchSize <= 0) {
+        throw new IllegalValueException("--batch must be greater than 0.");
       }
-    } catch (InterruptedException ex) {
-      ex.printStackTrace();
+    }
+    dense = options.containsKey("--dense-buckets");
+    sketched = options.containsKey("--second-percentiles");
+    cached = options.containsKey("--cache");
+    if (options.containsKey("--chunk-mb")) {
+      chunkBytes = Long.parseLong(options.get("--chunk-mb").getSubOptions().get(0)) << 20;
+      if (chunkBytes <= 0) {
+        throw new IllegalValueException("--chunk-mb must be greater than 0.");
+      }
+    }
+    if (options.containsKey("--latency-precision")) {
+      latencyDigits = Integer.parseInt(options.get("--latency-precision").getSubOptions().get(0));
+    }
+    if (options.containsKey("--follow")) {
+      followMillis = Long.parseLong(options.get("--follow").getSubOptions().get(0)) * 1000;
+      if (followMillis <= 0) {
+        throw new IllegalValueException("--follow must be greater than 0.");
+      }
+    }
+    if (options.containsKey("--metrics")) {
+      MetricsReporter.start(
+          Long.parseLong(options.get("--metrics").getSubOptions().get(0)) * 1000,
+          options.containsKey("--metrics-csv"));
+    }
+    if (options.containsKey("--profile")) {
+      PhaseProfiler.setReportFile(options.get("--profile").getSubOptions().get(0));
+    }
+    String postFile = options.get("--POST").getSubOptions().get(0);
+    String getFile = options.get("--GET").getSubOptions().get(0);
+    if (GzipMembers.isCompressed(postFile) || GzipMembers.isCompressed(getFile)) {
+      for (String option : UNCOMPRESSED_OPTIONS) {
+        if (options.containsKey(option)) {
+          throw new IllegalValueException(option + " is not supported for compressed input.");
+        }
+      }
+      if (engineType == EngineType.MAPREDUCE) {
+        throw new IllegalValueException(
+            "The mapreduce engine is not supported for compressed input.");
+      }
+    }
+    generateMap(postFile);
+    generateMap(getFile);
+    if (this.nextHandler != null) {
+      this.nextHandler.handleRequest(options);
     }
   }
 
   /**
    * The helper function that launchs several producer and consumer threads to bucket information
-   * from the original CSV file.
+   * from the original CSV file. It registers a new job for the file and returns without waiting,
+   * so several files can be in flight at once.
    *
-   * @param throughputMap data structure stores throughput buckets
-   * @param latencyMap data structure stores latency buckets
    * @param fileName the path for target file.
    * @throws IOException if file does not exist or I/O exception occurs.
    */
-  private void generateMap(ConcurrentSkipListMap throughputMap, ConcurrentSkipListMap latencyMap,
-      String fileName) throws IOException {
-    ThreadPool.latchReset();
-    BlockingQueue<String> queue1 = new ArrayBlockingQueue<>(CAPACITY);
-    BlockingQueue<String> queue2 = new ArrayBlockingQueue<>(CAPACITY);
+  private void generateMap(String fileName) throws IOException {
+    if (followMillis > 0) {
+      awaitFirstLine(fileName);
+    }
+    if (engineType == EngineType.MAPREDUCE) {
+      generateMapReduce(fileName);
+      return;
+    }
+    boolean special = consumerType == ConsumerType.SPECIAL_CONSUMER;
+    int consumers = ThreadPool.getConsumerThreads(special);
+    compressed = GzipMembers.isCompressed(fileName);
+    cache = cached ? ColumnarCache.open(fileName) : null;
+    cacheWriter = null;
+    scheduler = null;
+    long[][] cacheRanges = cache == null ? null : cache.getRanges(ThreadPool.getProducerThreads());
+    int producers = cache == null ? ThreadPool.getProducerThreads() : cacheRanges[0].length;
+    Job job = createJob(fileName, producers, special ? consumers * 2 : consumers);
+    ThreadPool.ensureThreads(Stage.PRODUCE, producers * ThreadPool.getFilesInFlight());
+    ThreadPool.ensureThreads(Stage.CONSUME,
+        (special ? consumers * 2 : consumers) * ThreadPool.getFilesInFlight());
+    PipelineMetrics metrics = null;
+    if (MetricsReporter.isEnabled()) {
+      metrics = new PipelineMetrics(job, producers, special ? consumers * 2 : consumers,
+          transportCapacity());
+      job.setMetrics(metrics);
+    }
+    Transport<Object> queue1 = createTransport(metrics);
+    Transport<Object> queue2 = special ? createTransport(metrics) : null;
+    if (metrics != null) {
+      MetricsReporter.register(metrics);
+    }
+    if (cache != null) {
+      System.out.println("Read cache: " + cache.getFileName());
+      for (int i = 0; i < producers; i++) {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(cache.getFileName(), "r");
+        FileChannel channel = randomAccessFile.getChannel();
+        addProducer(job, queue1, queue2, channel, cacheRanges[0][i], cacheRanges[1][i]);
+      }
+      addConsumers(job, queue1, queue2, consumers, cache.getStartTime());
+      return;
+    }
+    Phase index = PhaseProfiler.start(job.getFileName(), "index");
     InfoGetter infoGetter = new InfoGetter(fileName, ThreadPool.getProducerThreads(),
         "(?<=\"),(?=\")", '\n');
-    ThroughputConsumer.setStartTimestamp(infoGetter.getStartTime());
+    index.end();
+    if (cached) {
+      cacheWriter = new ColumnarCacheWriter(fileName, infoGetter.getStartTime(), producers);
+    }
     if (ThreadPool.getProducerThreads() == 1) {
       RandomAccessFile randomAccessFile = new RandomAccessFile(fileName, "r");
       FileChannel channel = randomAccessFile.getChannel();
-      if (consumerType == ConsumerType.SPECIAL_CONSUMER) {
-        ThreadPool.addThread(
-            new DoubleQueuesProducer(queue1, queue2, channel, 0, randomAccessFile.length()));
-      } else {
-        ThreadPool
-            .addThread(new SingleQueueProducer(queue1, channel, 0, randomAccessFile.length()));
-      }
+      addProducer(job, queue1, queue2, channel, 0, randomAccessFile.length());
     } else {
       if (readerType == ReaderType.SPLIT_READER) {
-        Timer.pause();
-        FileSplitter.splitFile(fileName, infoGetter.getBeginIndexs(), infoGetter.getEndIndexs());
-        Timer.resume();
+        Phase split = PhaseProfiler.start(fileName, "split");
+        FileSplitter.splitFileParallel(fileName, infoGetter.getBeginIndexs(),
+            infoGetter.getEndIndexs());
+        split.end();
         for (int i = 0; i < ThreadPool.getProducerThreads(); i++) {
           String newFile = fileName.replace(".csv", i + ".csv");
           RandomAccessFile randomAccessFile = new RandomAccessFile(newFile, "r");
           FileChannel channel = randomAccessFile.getChannel();
-          if (consumerType == ConsumerType.SPECIAL_CONSUMER) {
-            ThreadPool.addThread(
-                new DoubleQueuesProducer(queue1, queue2, channel, 0, randomAccessFile.length()));
-          } else {
-            ThreadPool
-                .addThread(new SingleQueueProducer(queue1, channel, 0, randomAccessFile.length()));
-          }
+          addProducer(job, queue1, queue2, channel, 0, randomAccessFile.length());
         }
       } else {
+        if (chunkBytes > 0) {
+          scheduler = new ChunkScheduler(fileName, chunkBytes, '\n');
+        }
         long[] beginIndexs = infoGetter.getBeginIndexs();
         long[] endIndexs = infoGetter.getEndIndexs();
         for (int i = 0; i < ThreadPool.getProducerThreads(); i++) {
@@ -122,24 +280,196 @@ public class ThreadHandler extends TaskHandler {
           long end = endIndexs[i];
           RandomAccessFile randomAccessFile = new RandomAccessFile(fileName, "r");
           FileChannel channel = randomAccessFile.getChannel();
-          if (consumerType == ConsumerType.SPECIAL_CONSUMER) {
-            ThreadPool.addThread(new DoubleQueuesProducer(queue1, queue2, channel, begin, end));
-          } else {
-            ThreadPool.addThread(new SingleQueueProducer(queue1, channel, begin, end));
-
-          }
+          addProducer(job, queue1, queue2, channel, begin, end);
         }
       }
     }
+    addConsumers(job, queue1, queue2, consumers, infoGetter.getStartTime());
+  }
+
+  /**
+   * The helper function that ingests a file with the map-reduce engine: one fork/join job maps
+   * line-aligned ranges of the file to local histograms and reduces them, without producer or
+   * consumer threads. Unless --multireader gives the number of ranges, there are a few per
+   * thread, so idle workers can steal the remaining ranges, but none below a megabyte.
+   *
+   * @param fileName the path for target file.
+   * @throws IOException if file does not exist or I/O exception occurs.
+   */
+  private void generateMapReduce(String fileName) throws IOException {
+    Job job = createJob(fileName, 1, 1);
+    int ranges = readerType == ReaderType.MULTI_READER ? ThreadPool.getProducerThreads()
+        : ThreadPool.getMaxThreads() * RANGES_PER_THREAD;
+    ranges = (int) Math.max(1, Math.min(ranges, new File(fileName).length() / MIN_RANGE_BYTES));
+    Phase index = PhaseProfiler.start(fileName, "index");
+    InfoGetter infoGetter = new InfoGetter(fileName, ranges, "(?<=\"),(?=\")", '\n');
+    index.end();
+    ThreadPool.addForkJoinTask(new MapReduceJob(job, infoGetter.getBeginIndexs(),
+        infoGetter.getEndIndexs(), infoGetter.getStartTime()));
+  }
+
+  /**
+   * The helper function that registers a new job for a file with the stores from the user's
+   * input. The job of a gzip file is named without the .gz suffix, which its outputs are named
+   * after.
+   *
+   * @param fileName the path for target file.
+   * @param producers the number of producer threads that will count down
+   * @param consumers the number of consumer threads that will count down
+   * @return the job
+   */
+  private Job createJob(String fileName, int producers, int consumers) {
+    Job job = new Job(GzipMembers.stripSuffix(fileName), producers, consumers,
+        dense ? new DenseThroughputStore(sketched) : new SkipListThroughputStore(sketched),
+        latencyDigits > 0 ? new LogLinearLatencyStore(latencyDigits)
+            : new SkipListLatencyStore());
+    JOBS.put(fileName, job);
+    return job;
+  }
+
+  /**
+   * The helper function that launches the consumer threads of a job and the poison pill
+   * producers that stop them. Multicast consumers take every line from the one queue, parse it
+   * once and hand the record to their own throughput sink and latency sink.
+   *
+   * @param job the job of the file
+   * @param queue1 the throughput queue, or the only queue for combo and multicast consumers
+   * @param queue2 the latency queue
+   * @param consumers the number of consumers per queue
+   * @param startTime the timestamp of the first request of the file
+   */
+  private void addConsumers(Job job, Transport<Object> queue1, Transport<Object> queue2,
+      int consumers, long startTime) {
+    ThroughputStore throughputMap = job.getThroughputMap();
+    LatencyStore latencyMap = job.getLatencyMap();
     if (consumerType == ConsumerType.SPECIAL_CONSUMER) {
-      for (int i = 0; i < ThreadPool.getMaxThreads() / 2; i++) {
-        ThreadPool.addThread(new ThroughputConsumer(queue1, throughputMap));
-        ThreadPool.addThread(new LatencyConsumer(queue2, latencyMap));
+      for (int i = 0; i < consumers; i++) {
+        addConsumer(new ThroughputConsumer(job, queue1, throughputMap, startTime));
+        addConsumer(new LatencyConsumer(job, queue2, latencyMap));
+      }
+      ThreadPool.addThread(Stage.CONTROL, new PoisonPillProducer(job, queue1, consumers));
+      ThreadPool.addThread(Stage.CONTROL, new PoisonPillProducer(job, queue2, consumers));
+    } else if (consumerType == ConsumerType.MULTICAST_CONSUMER) {
+      for (int i = 0; i < consumers; i++) {
+        addConsumer(new MulticastConsumer(job, queue1, new ThroughputSink(throughputMap, startTime),
+            new LatencySink(latencyMap)));
       }
+      ThreadPool.addThread(Stage.CONTROL, new PoisonPillProducer(job, queue1, consumers));
     } else {
-      for (int i = 0; i < ThreadPool.getMaxThreads(); i++) {
-        ThreadPool.addThread(new ComboConsumer(queue1, throughputMap, latencyMap));
+      for (int i = 0; i < consumers; i++) {
+        addConsumer(new ComboConsumer(job, queue1, throughputMap, latencyMap, startTime));
+      }
+      ThreadPool.addThread(Stage.CONTROL, new PoisonPillProducer(job, queue1, consumers));
+    }
+  }
+
+  /**
+   * The helper function that waits until a followed file holds its first complete line, which
+   * gives the start time the seconds are aligned to.
+   *
+   * @param fileName the path for target file.
+   * @throws IOException if the file cannot be read or the wait is interrupted.
+   */
+  private void awaitFirstLine(String fileName) throws IOException {
+    long waited = 0;
+    while (true) {
+      File file = new File(fileName);
+      if (file.isFile()) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+          int read;
+          while ((read = randomAccessFile.read()) != -1) {
+            if (read == '\n') {
+              return;
+            }
+          }
+        }
+      }
+      if (waited >= followMillis) {
+        throw new IOException(fileName + " has no complete line to follow.");
+      }
+      try {
+        Thread.sleep(FIRST_LINE_POLL_MILLIS);
+      } catch (InterruptedException ex) {
+        throw new IOException(ex.getMessage());
       }
+      waited += FIRST_LINE_POLL_MILLIS;
     }
   }
+
+  /**
+   * The helper function that gives the capacity of a transport in items. CAPACITY bounds the
+   * records in flight, so when every item is a batch the transport holds CAPACITY / batch size
+   * items. Batches written to or read from the columnar cache hold CACHE_BATCH records unless
+   * --batch gives their size.
+   *
+   * @return the capacity
+   */
+  private int transportCapacity() {
+    int recordsPerItem = batchSize > 0 ? batchSize : cached ? CACHE_BATCH : 1;
+    return Math.max(1, CAPACITY / recordsPerItem);
+  }
+
+  /**
+   * The helper function that creates an empty transport of the type from the user's input. With
+   * metrics the transport is wrapped to measure the time threads wait on it.
+   *
+   * @param metrics the metrics of the job, or null
+   * @return the transport
+   */
+  private Transport<Object> createTransport(PipelineMetrics metrics) {
+    Transport<Object> transport;
+    if (transportType == TransportType.RING) {
+      transport = new RingBufferTransport<>(transportCapacity());
+    } else {
+      transport = new QueueTransport<>(transportCapacity());
+    }
+    if (metrics == null) {
+      return transport;
+    }
+    MeteredTransport<Object> metered = new MeteredTransport<>(transport);
+    metrics.addQueue(metered);
+    return metered;
+  }
+
+  /**
+   * The helper function that launches one producer thread for a range of the file, choosing the
+   * producer type from the consumer type and the read mode from the user's input.
+   *
+   * @param job the job of the file
+   * @param queue1 the throughput queue, or the only queue for combo and multicast consumers
+   * @param queue2 the latency queue
+   * @param channel the file channel
+   * @param begin the begin index
+   * @param end the end index
+   */
+  private void addProducer(Job job, Transport<Object> queue1, Transport<Object> queue2,
+      FileChannel channel, long begin, long end) {
+    ReqProducer producer;
+    if (consumerType == ConsumerType.SPECIAL_CONSUMER) {
+      producer = new DoubleQueuesProducer(job, queue1, queue2, channel, begin, end);
+    } else {
+      producer = new SingleQueueProducer(job, queue1, channel, begin, end);
+    }
+    producer.setMapped(mapped);
+    producer.setBatchSize(cacheWriter != null && batchSize == 0 ? CACHE_BATCH : batchSize);
+    producer.setCache(cache);
+    producer.setCacheWriter(cacheWriter);
+    producer.setScheduler(scheduler);
+    producer.setFollow(followMillis);
+    producer.setCompressed(compressed);
+    ThreadPool.addThread(Stage.PRODUCE, producer);
+  }
+
+  /**
+   * The helper function that launches one consumer thread with the aggregation mode from the
+   * user's input. Per-second sketches are locked on every request, so sketching consumers always
+   * aggregate locally and merge their sketches once when they stop, unless live rows need the
+   * shared sketches in follow mode.
+   *
+   * @param consumer the consumer
+   */
+  private void addConsumer(ReqConsumer consumer) {
+    consumer.setLocalAggregation(localAggregation || sketched && followMillis == 0);
+    ThreadPool.addThread(Stage.CONSUME, consumer);
+  }
 }
@@ -1,6 +1,7 @@
 package handler;
 
 import argparser.Option;
+import pool.Stage;
 import pool.ThreadPool;
 import writer.PeakPhaseWriter;
 
@@ -23,9 +24,10 @@ public class ThresholdHandler extends TaskHandler {
     if (options.containsKey("--threshold")) {
       String fileName = options.get("--POST").getSubOptions().get(0);
       int threshold = Integer.parseInt(options.get("--threshold").getSubOptions().get(0));
-      ThreadPool.addThread(new PeakPhaseWriter(fileName, THROUGHPUT_POST_MAP, threshold));
+      ThreadPool.addThread(Stage.WRITE, new PeakPhaseWriter(JOBS.get(fileName), threshold));
+    }
+    if (this.nextHandler != null) {
+      this.nextHandler.handleRequest(options);
     }
-    ThreadPool.stop();
-    ThreadPool.sleep();
   }
 }
\ No newline at end of file
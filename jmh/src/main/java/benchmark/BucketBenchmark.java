@@ -0,0 +1,97 @@
+package benchmark;
+
+import bucket.LatencyBucket;
+import bucket.ThroughputBucket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the contended bucket updates the consumers do: every thread adds its share of the
+ * records to one shared ThroughputBucket, or to one shared LatencyBucket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BucketBenchmark {
+
+  @Param({"1", "2", "4"})
+  private int threads;
+  @Param({"100000"})
+  private int records;
+  private Workers workers;
+
+  /**
+   * Starts the threads.
+   */
+  @Setup
+  public void setUp() {
+    workers = new Workers(threads);
+  }
+
+  /**
+   * Add every record to one throughput bucket.
+   *
+   * @return the count of the bucket
+   * @throws Exception if a worker fails
+   */
+  @Benchmark
+  public long throughputBucket() throws Exception {
+    final ThroughputBucket bucket = new ThroughputBucket(0);
+    workers.run(new Workers.Task() {
+      @Override
+      public long run(int worker) {
+        int share = workers.share(records, worker);
+        for (int i = 0; i < share; i++) {
+          bucket.addNew(i & 1023);
+        }
+        return share;
+      }
+    });
+    return bucket.getCount();
+  }
+
+  /**
+   * Add every record to one latency bucket.
+   *
+   * @return the count of the bucket
+   * @throws Exception if a worker fails
+   */
+  @Benchmark
+  public long latencyBucket() throws Exception {
+    final LatencyBucket bucket = new LatencyBucket(100);
+    workers.run(new Workers.Task() {
+      @Override
+      public long run(int worker) {
+        int share = workers.share(records, worker);
+        for (int i = 0; i < share; i++) {
+          bucket.addNew(100);
+        }
+        return share;
+      }
+    });
+    return bucket.getCount();
+  }
+
+  /**
+   * Stops the threads.
+   */
+  @TearDown
+  public void tearDown() {
+    workers.shutdown();
+  }
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.RecordParser;
+import parser.RequestRecord;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the line parser every consumer runs in ReqConsumer.parseLine. Every thread parses
+ * its share of the lines with its own parser and record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+  @Param({"1", "2", "4"})
+  private int threads;
+  @Param({"100000"})
+  private int records;
+  private String[] lines;
+  private Workers workers;
+
+  /**
+   * Generates the lines and starts the threads.
+   */
+  @Setup
+  public void setUp() {
+    lines = new String[records];
+    Random random = new Random(records);
+    long timestamp = 1541656453693L;
+    for (int i = 0; i < records; i++) {
+      timestamp += random.nextInt(3);
+      lines[i] = "\"" + timestamp + "\",\"" + (i % 2 == 0 ? "POST" : "GET") + "\",\""
+          + (1 + random.nextInt(2000)) + "\",\"200\"";
+    }
+    workers = new Workers(threads);
+  }
+
+  /**
+   * Parse every line once.
+   *
+   * @return the latency sum
+   * @throws Exception if a worker fails
+   */
+  @Benchmark
+  public long parse() throws Exception {
+    return workers.run(new Workers.Task() {
+      @Override
+      public long run(int worker) {
+        RecordParser parser = new RecordParser();
+        RequestRecord record = new RequestRecord();
+        long latencies = 0;
+        for (int i = worker; i < lines.length; i += threads) {
+          if (parser.parse(lines[i], record)) {
+            latencies += record.getLatency();
+          }
+        }
+        return latencies;
+      }
+    });
+  }
+
+  /**
+   * Stops the threads.
+   */
+  @TearDown
+  public void tearDown() {
+    workers.shutdown();
+  }
+}
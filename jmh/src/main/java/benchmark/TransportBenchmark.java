@@ -0,0 +1,90 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import transport.QueueTransport;
+import transport.RingBufferTransport;
+import transport.Transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the handoff between producers and consumers as ThreadHandler.generateMap sets it
+ * up: the given number of producers put lines into one transport of the same capacity and as many
+ * consumers take them until each gets a poison pill.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportBenchmark {
+
+  private static final int CAPACITY = 50000;
+  private static final Object POISON_PILL = new Object();
+  private static final String LINE = "\"1541656453693\",\"POST\",\"225\",\"200\"";
+  @Param({"queue", "ring"})
+  private String transport;
+  @Param({"1", "2", "4"})
+  private int threads;
+  @Param({"100000"})
+  private int records;
+  private Workers workers;
+
+  /**
+   * Starts the producer and consumer threads.
+   */
+  @Setup
+  public void setUp() {
+    workers = new Workers(threads * 2);
+  }
+
+  /**
+   * Hand every record from the producers to the consumers.
+   *
+   * @return the number of records taken
+   * @throws Exception if a worker fails
+   */
+  @Benchmark
+  public long handoff() throws Exception {
+    final Transport<Object> queue = "ring".equals(transport)
+        ? new RingBufferTransport<Object>(CAPACITY) : new QueueTransport<Object>(CAPACITY);
+    return workers.run(new Workers.Task() {
+      @Override
+      public long run(int worker) throws InterruptedException {
+        if (worker < threads) {
+          int share = records / threads + (worker < records % threads ? 1 : 0);
+          for (int i = 0; i < share; i++) {
+            queue.put(LINE);
+          }
+          queue.put(POISON_PILL);
+          return 0;
+        }
+        long taken = 0;
+        while (queue.take() != POISON_PILL) {
+          taken++;
+        }
+        return taken;
+      }
+    });
+  }
+
+  /**
+   * Stops the threads.
+   */
+  @TearDown
+  public void tearDown() {
+    workers.shutdown();
+  }
+}
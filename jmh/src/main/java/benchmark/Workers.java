@@ -0,0 +1,86 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The type Workers that runs one task on a fixed number of threads and waits for all of them.
+ * Benchmarks create it in their trial setup, so thread start-up is not measured.
+ */
+public class Workers {
+
+  private int threads;
+  private ExecutorService executor;
+
+  /**
+   * The interface Task that one worker thread runs.
+   */
+  public interface Task {
+
+    /**
+     * Run the share of the given worker.
+     *
+     * @param worker the worker number, from 0 to threads - 1
+     * @return a value the benchmark returns to JMH against dead-code elimination
+     * @throws Exception if the task fails
+     */
+    long run(int worker) throws Exception;
+  }
+
+  /**
+   * Instantiates a new Workers object.
+   *
+   * @param threads the number of threads
+   */
+  public Workers(int threads) {
+    this.threads = threads;
+    this.executor = Executors.newFixedThreadPool(threads);
+  }
+
+  /**
+   * Run the task on every thread at once and wait for all of them.
+   *
+   * @param task the task
+   * @return the sum of the values of every worker
+   * @throws Exception if a worker fails
+   */
+  public long run(final Task task) throws Exception {
+    List<Callable<Long>> calls = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      final int worker = i;
+      calls.add(new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+          return task.run(worker);
+        }
+      });
+    }
+    long sum = 0;
+    for (Future<Long> future : executor.invokeAll(calls)) {
+      sum += future.get();
+    }
+    return sum;
+  }
+
+  /**
+   * Gets the number of records of one worker when the records are split evenly.
+   *
+   * @param records the number of records
+   * @param worker the worker number
+   * @return the share of the worker
+   */
+  public int share(int records, int worker) {
+    return records / threads + (worker < records % threads ? 1 : 0);
+  }
+
+  /**
+   * Stops the threads.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,89 @@
+package writer;
+
+import benchmark.Workers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the CsvRowEncoder the csv writers use, without the bucket snapshot around it: every
+ * thread encodes its share of throughput rows into its own temporary file. It lives in the writer
+ * package because the encoder is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvRowEncoderBenchmark {
+
+  @Param({"1", "2", "4"})
+  private int threads;
+  @Param({"100000"})
+  private int records;
+  private File[] files;
+  private Workers workers;
+
+  /**
+   * Creates one temporary file per thread and starts the threads.
+   *
+   * @throws IOException if a file cannot be created
+   */
+  @Setup
+  public void setUp() throws IOException {
+    files = new File[threads];
+    for (int i = 0; i < threads; i++) {
+      files[i] = File.createTempFile("encoder", ".csv");
+      files[i].deleteOnExit();
+    }
+    workers = new Workers(threads);
+  }
+
+  /**
+   * Encode every record as a throughput row.
+   *
+   * @return the number of bytes written
+   * @throws Exception if a worker fails
+   */
+  @Benchmark
+  public long encode() throws Exception {
+    return workers.run(new Workers.Task() {
+      @Override
+      public long run(int worker) throws IOException {
+        int share = workers.share(records, worker);
+        try (CsvRowEncoder encoder = new CsvRowEncoder(files[worker].getPath(), false)) {
+          encoder.field("Second").field("Count").field("Latency").endRow();
+          for (int i = 0; i < share; i++) {
+            encoder.field(i).field(1L + (i & 1023)).field(100L + i % 2000).endRow();
+          }
+        }
+        return files[worker].length();
+      }
+    });
+  }
+
+  /**
+   * Stops the threads and removes the files.
+   */
+  @TearDown
+  public void tearDown() {
+    workers.shutdown();
+    for (File file : files) {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package mapreduce;
+
+import pool.Job;
+import timer.PhaseProfiler;
+import timer.PhaseProfiler.Phase;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The type Map reduce job that ingests one file without queues. It maps every line-aligned range
+ * of the file to a partial on the fork/join workers, reduces the partials pairwise and adds the
+ * result to the job's stores once. Then it counts the job's latches down, so writers start as
+ * they do after the producer and consumer threads. If a range fails, the job is marked failed, so
+ * its writers write nothing instead of empty results.
+ */
+public class MapReduceJob extends RecursiveAction {
+
+  private static final long serialVersionUID = 1L;
+  private Job job;
+  private long[] begins;
+  private long[] ends;
+  private long startTime;
+
+  /**
+   * Instantiates a new Map reduce job.
+   *
+   * @param job the job of the file, with latches of one producer and one consumer
+   * @param begins the begin index of every range
+   * @param ends the end index of every range, exclusive
+   * @param startTime the timestamp of the first request of the file
+   */
+  public MapReduceJob(Job job, long[] begins, long[] ends, long startTime) {
+    this.job = job;
+    this.begins = begins;
+    this.ends = ends;
+    this.startTime = startTime;
+  }
+
+  @Override
+  protected void compute() {
+    System.out.println(this + " start");
+    try {
+      Partial partial = new RangeTask(job.getFileName(), begins, ends, 0, begins.length,
+          startTime, job.getThroughputMap().hasSketches()).compute();
+      Phase reduce = PhaseProfiler.start(job.getFileName(), "reduce");
+      partial.mergeInto(job.getThroughputMap(), job.getLatencyMap());
+      reduce.end();
+    } catch (RuntimeException ex) {
+      System.out.println("ERROR: " + this + " failed: " + ex);
+      job.fail(ex);
+    } finally {
+      job.getProducerLatch().countDown();
+      job.getConsumerLatch().countDown();
+    }
+    System.out.println(this + " end");
+  }
+
+  @Override
+  public String toString() {
+    return "Map Reduce Job: " + job.getFileName() + " " + Thread.currentThread().getName();
+  }
+}
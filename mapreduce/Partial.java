@@ -0,0 +1,67 @@
+package mapreduce;
+
+import bucket.LatencyStore;
+import bucket.LocalLatencyStore;
+import bucket.LocalThroughputStore;
+import bucket.ThroughputStore;
+
+/**
+ * The type Partial that holds the throughput and latency histograms of one or more file ranges.
+ * It is only touched by the fork/join task that owns it, so its stores are unsynchronized.
+ */
+public class Partial {
+
+  private LocalThroughputStore throughput;
+  private LocalLatencyStore latency;
+
+  /**
+   * Instantiates a new empty Partial.
+   *
+   * @param sketched true to sketch the latency distribution of every second
+   */
+  public Partial(boolean sketched) {
+    this.throughput = new LocalThroughputStore(sketched);
+    this.latency = new LocalLatencyStore();
+  }
+
+  /**
+   * Gets the throughput histogram.
+   *
+   * @return the throughput store
+   */
+  public LocalThroughputStore getThroughput() {
+    return throughput;
+  }
+
+  /**
+   * Gets the latency histogram.
+   *
+   * @return the latency store
+   */
+  public LocalLatencyStore getLatency() {
+    return latency;
+  }
+
+  /**
+   * Reduce another partial into this one.
+   *
+   * @param other the other partial, which must not be used afterwards
+   * @return this partial
+   */
+  public Partial merge(Partial other) {
+    other.throughput.mergeInto(throughput);
+    other.latency.mergeInto(latency);
+    return this;
+  }
+
+  /**
+   * Add the histograms to the shared stores of a job.
+   *
+   * @param throughputStore the throughput store
+   * @param latencyStore the latency store
+   */
+  public void mergeInto(ThroughputStore throughputStore, LatencyStore latencyStore) {
+    throughput.mergeInto(throughputStore);
+    latency.mergeInto(latencyStore);
+  }
+}
@@ -0,0 +1,133 @@
+package mapreduce;
+
+import consumer.LatencySink;
+import consumer.ThroughputSink;
+import parser.RecordParser;
+import parser.RequestRecord;
+import timer.PhaseProfiler;
+import timer.PhaseProfiler.Phase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The type Range task that maps a run of line-aligned file ranges to one partial. A run of more
+ * than one range is halved, the halves are computed in parallel and their partials are reduced
+ * pairwise; a single range is read, parsed and aggregated in place by the worker thread, so no
+ * line ever moves between threads.
+ */
+public class RangeTask extends RecursiveTask<Partial> {
+
+  private static final long serialVersionUID = 1L;
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final byte SEPARATOR = '\n';
+  private String fileName;
+  private long[] begins;
+  private long[] ends;
+  private int from;
+  private int to;
+  private long startTime;
+  private boolean sketched;
+
+  /**
+   * Instantiates a new Range task.
+   *
+   * @param fileName the input file
+   * @param begins the begin index of every range
+   * @param ends the end index of every range, exclusive
+   * @param from the first range of the run
+   * @param to the end range of the run, exclusive
+   * @param startTime the timestamp of the first request of the file
+   * @param sketched true to sketch the latency distribution of every second
+   */
+  public RangeTask(String fileName, long[] begins, long[] ends, int from, int to, long startTime,
+      boolean sketched) {
+    this.fileName = fileName;
+    this.begins = begins;
+    this.ends = ends;
+    this.from = from;
+    this.to = to;
+    this.startTime = startTime;
+    this.sketched = sketched;
+  }
+
+  @Override
+  protected Partial compute() {
+    if (to - from == 1) {
+      Phase map = PhaseProfiler.start(fileName, "map");
+      try {
+        return map(begins[from], ends[from]);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      } finally {
+        map.end();
+      }
+    }
+    int middle = (from + to) >>> 1;
+    RangeTask left = new RangeTask(fileName, begins, ends, from, middle, startTime, sketched);
+    RangeTask right = new RangeTask(fileName, begins, ends, middle, to, startTime, sketched);
+    left.fork();
+    Partial partial = right.compute();
+    Partial other = left.join();
+    Phase reduce = PhaseProfiler.start(fileName, "reduce");
+    try {
+      return partial.merge(other);
+    } finally {
+      reduce.end();
+    }
+  }
+
+  /**
+   * Helper function that reads the [begin, end) range through a reusable array and aggregates
+   * every line into a new partial. A line cut by the end of the array is moved to its front
+   * before the next read. Like the producers, it drops a last line that has no separator.
+   *
+   * @param begin the begin index
+   * @param end the end index, exclusive
+   * @return the partial of the range
+   * @throws IOException if the file cannot be read
+   */
+  private Partial map(long begin, long end) throws IOException {
+    Partial partial = new Partial(sketched);
+    ThroughputSink throughput = new ThroughputSink(partial.getThroughput(), startTime);
+    LatencySink latency = new LatencySink(partial.getLatency());
+    RecordParser parser = new RecordParser();
+    RequestRecord record = new RequestRecord();
+    byte[] bytes = new byte[(int) Math.max(1, Math.min(BUFFER_SIZE, end - begin))];
+    try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+      long position = begin;
+      int filled = 0;
+      while (position < end) {
+        if (filled == bytes.length) {
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        ByteBuffer buf = ByteBuffer.wrap(bytes, filled,
+            (int) Math.min(bytes.length - filled, end - position));
+        int read = channel.read(buf, position);
+        if (read <= 0) {
+          break;
+        }
+        position += read;
+        int lineStart = 0;
+        for (int i = filled; i < filled + read; i++) {
+          if (bytes[i] == SEPARATOR) {
+            if (parser.parse(bytes, lineStart, i, record)) {
+              throughput.addRequest(record);
+              latency.addRequest(record);
+            }
+            lineStart = i + 1;
+          }
+        }
+        filled += read - lineStart;
+        System.arraycopy(bytes, lineStart, bytes, 0, filled);
+      }
+    }
+    return partial;
+  }
+}
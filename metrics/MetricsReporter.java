@@ -0,0 +1,231 @@
+package metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The type Metrics reporter that publishes the pipeline metrics of every job as an MBean and,
+ * with a period, dumps a snapshot of each job to the console or to a metrics csv file next to the
+ * input. A job is reported one last time and unregistered once its consumers stop.
+ */
+public class MetricsReporter {
+
+  private static final String DOMAIN = "PerformanceDataProcessor:type=Pipeline,name=";
+  private static final double MEGABYTE = 1 << 20;
+  private static final Map<PipelineMetrics, Report> REPORTS = new LinkedHashMap<>();
+  private static ScheduledExecutorService scheduler;
+  private static boolean enabled;
+  private static boolean csv;
+
+  /**
+   * Start reporting. Only the first call takes effect.
+   *
+   * @param periodMillis the dump period in milliseconds, or 0 to dump once per job at the end
+   * @param toCsv true to dump to metrics csv files instead of the console
+   */
+  public static synchronized void start(long periodMillis, boolean toCsv) {
+    if (enabled) {
+      return;
+    }
+    enabled = true;
+    csv = toCsv;
+    if (periodMillis > 0) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "metrics-reporter");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+      scheduler.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          tick();
+        }
+      }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Tells whether reporting has started.
+   *
+   * @return true if jobs should be instrumented
+   */
+  public static synchronized boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Register the metrics of a job once its queues are added.
+   *
+   * @param metrics the metrics
+   */
+  public static synchronized void register(PipelineMetrics metrics) {
+    Report report = new Report();
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      report.name = new ObjectName(DOMAIN + ObjectName.quote(metrics.getFileName()));
+      if (server.isRegistered(report.name)) {
+        server.unregisterMBean(report.name);
+      }
+      server.registerMBean(metrics, report.name);
+    } catch (JMException ex) {
+      System.out.println("ERROR: something went wrong: " + ex.getMessage());
+      report.name = null;
+    }
+    if (csv) {
+      String fileName = metrics.getFileName().replaceAll("(raw)?\\.csv$", "-metrics.csv");
+      try {
+        report.output = new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(fileName), StandardCharsets.UTF_8));
+        StringBuilder header = new StringBuilder("\"Elapsed ms\",\"Records read\",\"Records/s\","
+            + "\"MB/s\"");
+        for (int i = 1; i <= metrics.getQueueSizes().length; i++) {
+          header.append(",\"Queue ").append(i).append('"');
+        }
+        header.append(",\"Records consumed\",\"Producer blocked ms\",\"Consumer blocked ms\","
+            + "\"Throughput buckets\",\"Latency buckets\"");
+        report.output.write(header.append(System.lineSeparator()).toString());
+      } catch (IOException ex) {
+        System.out.println("ERROR: something went wrong: " + ex.getMessage());
+      }
+    }
+    REPORTS.put(metrics, report);
+  }
+
+  /**
+   * Stop reporting. Every job still registered is reported one last time and unregistered.
+   */
+  public static synchronized void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+    for (Map.Entry<PipelineMetrics, Report> entry : REPORTS.entrySet()) {
+      dump(entry.getKey(), entry.getValue());
+      finish(entry.getValue());
+    }
+    REPORTS.clear();
+    enabled = false;
+  }
+
+  /**
+   * Helper function that dumps every job and retires the jobs that are done.
+   */
+  private static synchronized void tick() {
+    Map<PipelineMetrics, Report> done = new LinkedHashMap<>();
+    for (Map.Entry<PipelineMetrics, Report> entry : REPORTS.entrySet()) {
+      dump(entry.getKey(), entry.getValue());
+      if (entry.getKey().isDone()) {
+        done.put(entry.getKey(), entry.getValue());
+      }
+    }
+    for (Map.Entry<PipelineMetrics, Report> entry : done.entrySet()) {
+      finish(entry.getValue());
+      REPORTS.remove(entry.getKey());
+    }
+  }
+
+  /**
+   * Helper function that writes one snapshot of a job. The rates cover the time since the
+   * previous snapshot.
+   *
+   * @param metrics the metrics
+   * @param report the report state of the job
+   */
+  private static void dump(PipelineMetrics metrics, Report report) {
+    long nanos = metrics.getElapsedNanos();
+    long[] producers = metrics.getProducerRecords();
+    long records = 0;
+    for (long count : producers) {
+      records += count;
+    }
+    long bytes = metrics.getBytesRead();
+    long[] consumers = metrics.getConsumerRecords();
+    long consumed = 0;
+    for (long count : consumers) {
+      consumed += count;
+    }
+    double seconds = Math.max(1, nanos - report.nanos) / 1e9;
+    double recordRate = (records - report.records) / seconds;
+    double megabyteRate = (bytes - report.bytes) / MEGABYTE / seconds;
+    int[] queues = metrics.getQueueSizes();
+    report.nanos = nanos;
+    report.records = records;
+    report.bytes = bytes;
+    if (report.output == null) {
+      System.out.println(String.format("Metrics %s: read %d records (%.0f records/s, %.2f MB/s), "
+              + "producers %s, queues %s/%d, consumers %s, blocked put %d ms take %d ms, "
+              + "buckets %d throughput %d latency", metrics.getFileName(), records, recordRate,
+          megabyteRate, Arrays.toString(producers), Arrays.toString(queues),
+          metrics.getQueueCapacity(), Arrays.toString(consumers),
+          metrics.getProducerBlockedMillis(), metrics.getConsumerBlockedMillis(),
+          metrics.getThroughputBuckets(), metrics.getLatencyBuckets()));
+      return;
+    }
+    StringBuilder row = new StringBuilder();
+    row.append('"').append(TimeUnit.NANOSECONDS.toMillis(nanos)).append("\",\"").append(records)
+        .append("\",\"").append(Math.round(recordRate)).append("\",\"")
+        .append(String.format(Locale.ROOT, "%.2f", megabyteRate)).append('"');
+    for (int size : queues) {
+      row.append(",\"").append(size).append('"');
+    }
+    row.append(",\"").append(consumed).append("\",\"").append(metrics.getProducerBlockedMillis())
+        .append("\",\"").append(metrics.getConsumerBlockedMillis()).append("\",\"")
+        .append(metrics.getThroughputBuckets()).append("\",\"")
+        .append(metrics.getLatencyBuckets()).append('"').append(System.lineSeparator());
+    try {
+      report.output.write(row.toString());
+      report.output.flush();
+    } catch (IOException ex) {
+      System.out.println("ERROR: something went wrong: " + ex.getMessage());
+    }
+  }
+
+  /**
+   * Helper function that closes the csv file of a job and unregisters its MBean.
+   *
+   * @param report the report state of the job
+   */
+  private static void finish(Report report) {
+    try {
+      if (report.output != null) {
+        report.output.close();
+      }
+      if (report.name != null) {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(report.name);
+      }
+    } catch (IOException | JMException ex) {
+      System.out.println("ERROR: something went wrong: " + ex.getMessage());
+    }
+  }
+
+  /**
+   * The report state of one job: its MBean name, its csv file and the previous snapshot.
+   */
+  private static class Report {
+
+    private ObjectName name;
+    private Writer output;
+    private long nanos;
+    private long records;
+    private long bytes;
+  }
+}
@@ -0,0 +1,193 @@
+package metrics;
+
+import pool.Job;
+import transport.MeteredTransport;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The type Pipeline metrics that instruments the producers, queues, consumers and stores of one
+ * job. Producers and consumers claim a slot when they start and publish their counts to it in
+ * steps, so the hot loops only touch thread-local fields between steps.
+ */
+public class PipelineMetrics implements PipelineMetricsMBean {
+
+  /**
+   * The number of records a thread counts locally before it publishes them.
+   */
+  public static final int PUBLISH_RECORDS = 4096;
+  private Job job;
+  private int queueCapacity;
+  private long startNanos = System.nanoTime();
+  private StripedCounter producerRecords;
+  private StripedCounter producerBytes;
+  private StripedCounter consumerRecords;
+  private AtomicInteger producerSlots = new AtomicInteger();
+  private AtomicInteger consumerSlots = new AtomicInteger();
+  private List<MeteredTransport<?>> queues = new CopyOnWriteArrayList<>();
+
+  /**
+   * Instantiates a new Pipeline metrics.
+   *
+   * @param job the job to instrument
+   * @param producers the number of producer threads
+   * @param consumers the number of consumer threads
+   * @param queueCapacity the capacity of every queue
+   */
+  public PipelineMetrics(Job job, int producers, int consumers, int queueCapacity) {
+    this.job = job;
+    this.queueCapacity = queueCapacity;
+    this.producerRecords = new StripedCounter(producers);
+    this.producerBytes = new StripedCounter(producers);
+    this.consumerRecords = new StripedCounter(consumers);
+  }
+
+  /**
+   * Add a queue of the job to the report.
+   *
+   * @param queue the queue
+   */
+  public void addQueue(MeteredTransport<?> queue) {
+    queues.add(queue);
+  }
+
+  /**
+   * Claim the slot of a starting producer.
+   *
+   * @return the slot
+   */
+  public int claimProducer() {
+    return producerSlots.getAndIncrement();
+  }
+
+  /**
+   * Claim the slot of a starting consumer.
+   *
+   * @return the slot
+   */
+  public int claimConsumer() {
+    return consumerSlots.getAndIncrement();
+  }
+
+  /**
+   * Publish what a producer read since its last step.
+   *
+   * @param slot the slot of the producer
+   * @param records the records read
+   * @param bytes the bytes read
+   */
+  public void addRead(int slot, long records, long bytes) {
+    producerRecords.add(slot, records);
+    producerBytes.add(slot, bytes);
+  }
+
+  /**
+   * Publish what a consumer aggregated since its last step.
+   *
+   * @param slot the slot of the consumer
+   * @param records the records aggregated
+   */
+  public void addConsumed(int slot, long records) {
+    consumerRecords.add(slot, records);
+  }
+
+  /**
+   * Gets the time since the job started.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return System.nanoTime() - startNanos;
+  }
+
+  @Override
+  public String getFileName() {
+    return job.getFileName();
+  }
+
+  @Override
+  public long[] getProducerRecords() {
+    return producerRecords.toArray();
+  }
+
+  @Override
+  public long getRecordsRead() {
+    return producerRecords.sum();
+  }
+
+  @Override
+  public long getBytesRead() {
+    return producerBytes.sum();
+  }
+
+  @Override
+  public double getRecordsPerSecond() {
+    return getRecordsRead() * 1e9 / Math.max(1, getElapsedNanos());
+  }
+
+  @Override
+  public double getBytesPerSecond() {
+    return getBytesRead() * 1e9 / Math.max(1, getElapsedNanos());
+  }
+
+  @Override
+  public int[] getQueueSizes() {
+    int[] sizes = new int[queues.size()];
+    for (int i = 0; i < sizes.length; i++) {
+      sizes[i] = queues.get(i).size();
+    }
+    return sizes;
+  }
+
+  @Override
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  @Override
+  public long[] getConsumerRecords() {
+    return consumerRecords.toArray();
+  }
+
+  @Override
+  public long getProducerBlockedMillis() {
+    long nanos = 0;
+    for (MeteredTransport<?> queue : queues) {
+      nanos += queue.getPutBlockedNanos();
+    }
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  @Override
+  public long getConsumerBlockedMillis() {
+    long nanos = 0;
+    for (MeteredTransport<?> queue : queues) {
+      nanos += queue.getTakeBlockedNanos();
+    }
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  @Override
+  public int getThroughputBuckets() {
+    return job.getThroughputMap().getBucketCount();
+  }
+
+  @Override
+  public int getLatencyBuckets() {
+    return job.getLatencyMap().getBucketCount();
+  }
+
+  @Override
+  public boolean isDone() {
+    return job.getConsumerLatch().getCount() == 0;
+  }
+
+  @Override
+  public String toString() {
+    return "PipelineMetrics{" + "fileName='" + getFileName() + '\'' + ", recordsRead="
+        + getRecordsRead() + '}';
+  }
+}
@@ -0,0 +1,105 @@
+package metrics;
+
+/**
+ * The management interface of the pipeline metrics of one input file.
+ */
+public interface PipelineMetricsMBean {
+
+  /**
+   * Gets the input file.
+   *
+   * @return the file name
+   */
+  String getFileName();
+
+  /**
+   * Gets the records read by each producer.
+   *
+   * @return the records per producer
+   */
+  long[] getProducerRecords();
+
+  /**
+   * Gets the records read by all producers.
+   *
+   * @return the records
+   */
+  long getRecordsRead();
+
+  /**
+   * Gets the bytes read by all producers.
+   *
+   * @return the bytes
+   */
+  long getBytesRead();
+
+  /**
+   * Gets the mean rate of records read since the job started.
+   *
+   * @return the records per second
+   */
+  double getRecordsPerSecond();
+
+  /**
+   * Gets the mean rate of bytes read since the job started.
+   *
+   * @return the bytes per second
+   */
+  double getBytesPerSecond();
+
+  /**
+   * Gets the number of items waiting in each queue.
+   *
+   * @return the occupancy per queue
+   */
+  int[] getQueueSizes();
+
+  /**
+   * Gets the capacity of every queue.
+   *
+   * @return the capacity
+   */
+  int getQueueCapacity();
+
+  /**
+   * Gets the records aggregated by each consumer.
+   *
+   * @return the records per consumer
+   */
+  long[] getConsumerRecords();
+
+  /**
+   * Gets the total time producers waited on full queues.
+   *
+   * @return the time in milliseconds
+   */
+  long getProducerBlockedMillis();
+
+  /**
+   * Gets the total time consumers waited on empty queues.
+   *
+   * @return the time in milliseconds
+   */
+  long getConsumerBlockedMillis();
+
+  /**
+   * Gets the number of throughput buckets.
+   *
+   * @return the number of buckets
+   */
+  int getThroughputBuckets();
+
+  /**
+   * Gets the number of latency buckets.
+   *
+   * @return the number of buckets
+   */
+  int getLatencyBuckets();
+
+  /**
+   * Tells whether every consumer of the file has stopped.
+   *
+   * @return true once the job is done
+   */
+  boolean isDone();
+}
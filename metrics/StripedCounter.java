@@ -0,0 +1,81 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The type Striped counter that keeps one count per thread slot. The slots are padded a cache
+ * line apart, so threads adding to their own slot never contend or share a line, and readers sum
+ * the slots or read them one by one.
+ */
+public class StripedCounter {
+
+  private static final int PADDING = 16;
+  private final int stripes;
+  private final AtomicLongArray cells;
+
+  /**
+   * Instantiates a new Striped counter.
+   *
+   * @param stripes the number of slots
+   */
+  public StripedCounter(int stripes) {
+    this.stripes = Math.max(1, stripes);
+    this.cells = new AtomicLongArray((this.stripes + 1) * PADDING);
+  }
+
+  /**
+   * Add to one slot.
+   *
+   * @param stripe the slot, wrapped into range
+   * @param delta the amount
+   */
+  public void add(int stripe, long delta) {
+    cells.getAndAdd(index(stripe), delta);
+  }
+
+  /**
+   * Gets the count of one slot.
+   *
+   * @param stripe the slot, wrapped into range
+   * @return the count
+   */
+  public long get(int stripe) {
+    return cells.get(index(stripe));
+  }
+
+  /**
+   * Gets the count of every slot.
+   *
+   * @return the counts
+   */
+  public long[] toArray() {
+    long[] counts = new long[stripes];
+    for (int i = 0; i < stripes; i++) {
+      counts[i] = get(i);
+    }
+    return counts;
+  }
+
+  /**
+   * Gets the sum of all slots.
+   *
+   * @return the sum
+   */
+  public long sum() {
+    long sum = 0;
+    for (int i = 0; i < stripes; i++) {
+      sum += get(i);
+    }
+    return sum;
+  }
+
+  /**
+   * Helper function that maps a slot to its padded cell.
+   *
+   * @param stripe the slot
+   * @return the cell index
+   */
+  private int index(int stripe) {
+    return (Math.floorMod(stripe, stripes) + 1) * PADDING;
+  }
+}
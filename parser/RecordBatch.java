@@ -0,0 +1,76 @@
+package parser;
+
+import parser.RequestRecord.Method;
+
+/**
+ * The type Record batch that carries up to a fixed number of parsed records from a producer to the
+ * consumers in one queue operation. The fields are kept in parallel primitive arrays. A batch is
+ * filled by one producer and only read once it is published, so it may be shared by several
+ * queues.
+ */
+public class RecordBatch {
+
+  private long[] timestamps;
+  private Method[] methods;
+  private int[] latencies;
+  private short[] statuses;
+  private int size;
+
+  /**
+   * Instantiates a new Record batch.
+   *
+   * @param capacity the maximum number of records
+   */
+  public RecordBatch(int capacity) {
+    this.timestamps = new long[capacity];
+    this.methods = new Method[capacity];
+    this.latencies = new int[capacity];
+    this.statuses = new short[capacity];
+  }
+
+  /**
+   * Append a record to the batch.
+   *
+   * @param record the record to copy
+   */
+  public void add(RequestRecord record) {
+    timestamps[size] = record.getTimestamp();
+    methods[size] = record.getMethod();
+    latencies[size] = record.getLatency();
+    statuses[size] = record.getStatus();
+    size++;
+  }
+
+  /**
+   * Copy the record at an index into a reusable record.
+   *
+   * @param index the index
+   * @param record the record to fill
+   */
+  public void get(int index, RequestRecord record) {
+    record.set(timestamps[index], methods[index], latencies[index], statuses[index]);
+  }
+
+  /**
+   * Gets the number of records in the batch.
+   *
+   * @return the size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets if the batch has no room left.
+   *
+   * @return true if full
+   */
+  public boolean isFull() {
+    return size == timestamps.length;
+  }
+
+  @Override
+  public String toString() {
+    return "RecordBatch{" + "size=" + size + ", capacity=" + timestamps.length + '}';
+  }
+}
@@ -0,0 +1,184 @@
+package parser;
+
+import parser.RequestRecord.Method;
+
+/**
+ * The type Record parser that reads the fixed "timestamp","method","latency","status" layout
+ * byte by byte into a reusable RequestRecord. It never allocates per line, so one parser instance
+ * should be kept per thread.
+ */
+public class RecordParser {
+
+  private static final byte QUOTE = '"';
+  private static final byte COMMA = ',';
+  private static final byte RETURN = '\r';
+  private static final Method[] METHODS = Method.values();
+  private static final byte[][] METHOD_NAMES = new byte[METHODS.length][];
+  private static final int LINE_CAPACITY = 128;
+
+  private byte[] bytes;
+  private int position;
+  private int limit;
+  private byte[] line = new byte[LINE_CAPACITY];
+
+  static {
+    for (int i = 0; i < METHODS.length; i++) {
+      String name = METHODS[i].name();
+      METHOD_NAMES[i] = new byte[name.length()];
+      for (int j = 0; j < name.length(); j++) {
+        METHOD_NAMES[i][j] = (byte) name.charAt(j);
+      }
+    }
+  }
+
+  /**
+   * Parse a line taken from a queue. The characters are copied into a reusable array and parsed
+   * by the byte level parser.
+   *
+   * @param text the line
+   * @param record the record to fill
+   * @return true if the line was well formed, otherwise the record is left unchanged
+   */
+  public boolean parse(String text, RequestRecord record) {
+    int length = text.length();
+    if (length > line.length) {
+      line = new byte[Math.max(length, line.length * 2)];
+    }
+    for (int i = 0; i < length; i++) {
+      line[i] = (byte) text.charAt(i);
+    }
+    return parse(line, 0, length, record);
+  }
+
+  /**
+   * Parse the bytes of one line, without the line separator.
+   *
+   * @param bytes the bytes holding the line
+   * @param from the first byte of the line
+   * @param to the end of the line, exclusive
+   * @param record the record to fill
+   * @return true if the line was well formed, otherwise the record is left unchanged
+   */
+  public boolean parse(byte[] bytes, int from, int to, RequestRecord record) {
+    this.bytes = bytes;
+    this.position = from;
+    this.limit = to > from && bytes[to - 1] == RETURN ? to - 1 : to;
+    long timestamp = readNumber();
+    if (timestamp < 0 || !skipComma()) {
+      return false;
+    }
+    Method method = readMethod();
+    if (method == null || !skipComma()) {
+      return false;
+    }
+    long latency = readNumber();
+    if (latency < 0 || latency > Integer.MAX_VALUE || !skipComma()) {
+      return false;
+    }
+    long status = readNumber();
+    if (status < 0 || status > Short.MAX_VALUE || position != limit) {
+      return false;
+    }
+    record.set(timestamp, method, (int) latency, (short) status);
+    return true;
+  }
+
+  /**
+   * Helper function that reads an optionally quoted non-negative decimal field.
+   *
+   * @return the value, or -1 if the field is empty or holds anything but digits
+   */
+  private long readNumber() {
+    boolean quoted = position < limit && bytes[position] == QUOTE;
+    if (quoted) {
+      position++;
+    }
+    int start = position;
+    long value = 0;
+    while (position < limit) {
+      int digit = bytes[position] - '0';
+      if (digit < 0 || digit > 9) {
+        break;
+      }
+      value = value * 10 + digit;
+      position++;
+    }
+    if (position == start || position - start > 18 || !skipQuote(quoted)) {
+      return -1;
+    }
+    return value;
+  }
+
+  /**
+   * Helper function that reads an optionally quoted method field.
+   *
+   * @return the method, OTHER for an unknown name, or null if the field is malformed
+   */
+  private Method readMethod() {
+    boolean quoted = position < limit && bytes[position] == QUOTE;
+    if (quoted) {
+      position++;
+    }
+    int start = position;
+    while (position < limit && bytes[position] != QUOTE && bytes[position] != COMMA) {
+      position++;
+    }
+    int length = position - start;
+    if (length == 0 || !skipQuote(quoted)) {
+      return null;
+    }
+    for (int i = 0; i < METHOD_NAMES.length; i++) {
+      byte[] name = METHOD_NAMES[i];
+      if (name.length == length && matches(name, start)) {
+        return METHODS[i];
+      }
+    }
+    return Method.OTHER;
+  }
+
+  /**
+   * Helper function that compares a method name against the bytes at an offset.
+   *
+   * @param name the method name
+   * @param start the offset
+   * @return true if all the bytes match
+   */
+  private boolean matches(byte[] name, int start) {
+    for (int i = 0; i < name.length; i++) {
+      if (bytes[start + i] != name[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Helper function that consumes the closing quote of a quoted field.
+   *
+   * @param quoted whether the field was opened with a quote
+   * @return false if the closing quote is missing
+   */
+  private boolean skipQuote(boolean quoted) {
+    if (!quoted) {
+      return true;
+    }
+    if (position < limit && bytes[position] == QUOTE) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Helper function that consumes the comma between two fields.
+   *
+   * @return false if the comma is missing
+   */
+  private boolean skipComma() {
+    if (position < limit && bytes[position] == COMMA) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+}
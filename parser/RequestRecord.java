@@ -0,0 +1,77 @@
+package parser;
+
+/**
+ * The type Request record that holds the parsed fields of one raw CSV line. A record is mutable so
+ * that a consumer can reuse one instance for every line it parses.
+ */
+public class RequestRecord {
+
+  private long timestamp;
+  private Method method;
+  private int latency;
+  private short status;
+
+  /**
+   * The enum of request methods recognized by the parser.
+   */
+  public enum Method {
+    GET, POST, PUT, DELETE, HEAD, PATCH, OPTIONS, OTHER
+  }
+
+  /**
+   * Sets all the fields of the record.
+   *
+   * @param timestamp the timestamp in milliseconds
+   * @param method the method
+   * @param latency the latency
+   * @param status the status code
+   */
+  public void set(long timestamp, Method method, int latency, short status) {
+    this.timestamp = timestamp;
+    this.method = method;
+    this.latency = latency;
+    this.status = status;
+  }
+
+  /**
+   * Gets the timestamp in milliseconds.
+   *
+   * @return the timestamp
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Gets the method.
+   *
+   * @return the method
+   */
+  public Method getMethod() {
+    return method;
+  }
+
+  /**
+   * Gets the latency.
+   *
+   * @return the latency
+   */
+  public int getLatency() {
+    return latency;
+  }
+
+  /**
+   * Gets the status code.
+   *
+   * @return the status code
+   */
+  public short getStatus() {
+    return status;
+  }
+
+  @Override
+  public String toString() {
+    return "RequestRecord{" + "timestamp=" + timestamp + ", method=" + method + ", latency="
+        + latency + ", status=" + status + '}';
+  }
+}
@@ -0,0 +1,86 @@
+package pool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The kinds of executor a stage can run on.
+ */
+public enum Backend {
+
+  /**
+   * An unbounded pool of platform threads that are reused while idle.
+   */
+  CACHED,
+
+  /**
+   * A bounded pool of platform threads.
+   */
+  FIXED,
+
+  /**
+   * A bounded work-stealing pool.
+   */
+  FORK_JOIN,
+
+  /**
+   * One virtual thread per task. On a JVM without virtual threads it falls back to a cached pool.
+   */
+  VIRTUAL;
+
+  /**
+   * Create an executor of this kind.
+   *
+   * @param threads the number of threads of a bounded executor
+   * @return the executor
+   */
+  public ExecutorService create(int threads) {
+    switch (this) {
+      case FIXED:
+        return Executors.newFixedThreadPool(Math.max(1, threads));
+      case FORK_JOIN:
+        return new ForkJoinPool(Math.max(1, threads),
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+      case VIRTUAL:
+        return createVirtual();
+      default:
+        return Executors.newCachedThreadPool();
+    }
+  }
+
+  /**
+   * Tells whether the executor runs at most a fixed number of tasks at once.
+   *
+   * @return true for fixed and fork-join executors
+   */
+  public boolean isBounded() {
+    return this == FIXED || this == FORK_JOIN;
+  }
+
+  /**
+   * Find the backend by its command line name.
+   *
+   * @param name the name, such as "fork-join"
+   * @return the backend
+   */
+  public static Backend of(String name) {
+    return valueOf(name.toUpperCase().replace('-', '_'));
+  }
+
+  /**
+   * Helper function that creates a virtual thread per task executor through reflection, so the
+   * code still builds and runs on JVMs older than 21.
+   *
+   * @return the executor
+   */
+  private static ExecutorService createVirtual() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException ex) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package pool;
+
+import bucket.LatencyStore;
+import bucket.ThroughputStore;
+import metrics.PipelineMetrics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The type Job that holds everything one input file needs while it is processed: its own producer
+ * and consumer latches and the stores its consumers fill. Several jobs can be in flight on the
+ * same thread pool at once.
+ */
+public class Job {
+
+  private static final AtomicInteger FAILED_JOBS = new AtomicInteger();
+  private String fileName;
+  private CountDownLatch producerLatch;
+  private CountDownLatch consumerLatch;
+  private ThroughputStore throughputMap;
+  private LatencyStore latencyMap;
+  private PipelineMetrics metrics;
+  private volatile Throwable failure;
+
+  /**
+   * Instantiates a new Job.
+   *
+   * @param fileName the input file
+   * @param producerThreads the number of producer threads that will count down
+   * @param consumerThreads the number of consumer threads that will count down
+   * @param throughputMap the throughput store
+   * @param latencyMap the latency store
+   */
+  public Job(String fileName, int producerThreads, int consumerThreads,
+      ThroughputStore throughputMap, LatencyStore latencyMap) {
+    this.fileName = fileName;
+    this.producerLatch = new CountDownLatch(producerThreads);
+    this.consumerLatch = new CountDownLatch(consumerThreads);
+    this.throughputMap = throughputMap;
+    this.latencyMap = latencyMap;
+  }
+
+  /**
+   * Gets the input file.
+   *
+   * @return the file name
+   */
+  public String getFileName() {
+    return fileName;
+  }
+
+  /**
+   * Gets producer latch.
+   *
+   * @return the producer latch
+   */
+  public CountDownLatch getProducerLatch() {
+    return producerLatch;
+  }
+
+  /**
+   * Gets consumer latch.
+   *
+   * @return the consumer latch
+   */
+  public CountDownLatch getConsumerLatch() {
+    return consumerLatch;
+  }
+
+  /**
+   * Gets the throughput store.
+   *
+   * @return the throughput store
+   */
+  public ThroughputStore getThroughputMap() {
+    return throughputMap;
+  }
+
+  /**
+   * Gets the latency store.
+   *
+   * @return the latency store
+   */
+  public LatencyStore getLatencyMap() {
+    return latencyMap;
+  }
+
+  /**
+   * Gets the pipeline metrics.
+   *
+   * @return the metrics, or null if the job is not instrumented
+   */
+  public PipelineMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Sets the pipeline metrics that producers and consumers of the job publish their counts to.
+   *
+   * @param metrics the metrics, or null to not instrument the job
+   */
+  public void setMetrics(PipelineMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Marks the job failed. A failed job still counts its latches down, but its results are
+   * incomplete, so writers skip it. Only the first failure is kept.
+   *
+   * @param cause the failure
+   */
+  public synchronized void fail(Throwable cause) {
+    if (failure == null) {
+      failure = cause;
+      FAILED_JOBS.incrementAndGet();
+    }
+  }
+
+  /**
+   * Gets the failure of the job.
+   *
+   * @return the first failure, or null if the job has not failed
+   */
+  public Throwable getFailure() {
+    return failure;
+  }
+
+  /**
+   * Gets the number of jobs that failed in this JVM.
+   *
+   * @return the number of failed jobs
+   */
+  public static int getFailedJobs() {
+    return FAILED_JOBS.get();
+  }
+
+  @Override
+  public String toString() {
+    return "Job{" + "fileName='" + fileName + '\'' + ", producers=" + producerLatch.getCount()
+        + ", consumers=" + consumerLatch.getCount() + '}';
+  }
+}
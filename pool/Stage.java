@@ -0,0 +1,64 @@
+package pool;
+
+/**
+ * The stages of the pipeline, each run on its own executor. Producers and consumers are CPU bound
+ * and wait on each other through the queues, writers mostly wait on the consumers and on disk,
+ * charts are rendered and written as PNG files, and control tasks such as poison pill producers
+ * and live writers only wait or poll. The map-reduce engine replaces the producer and consumer
+ * stages by fork/join tasks.
+ */
+public enum Stage {
+
+  /**
+   * The producers that read and parse the input files.
+   */
+  PRODUCE(true),
+
+  /**
+   * The consumers that aggregate the records into the stores.
+   */
+  CONSUME(true),
+
+  /**
+   * The fork/join tasks of the map-reduce engine. Its executor is always a fork-join pool of
+   * MAX_THREADS and cannot be chosen.
+   */
+  MAP(false),
+
+  /**
+   * The csv writers.
+   */
+  WRITE(false),
+
+  /**
+   * The chart rendering tasks.
+   */
+  RENDER(false),
+
+  /**
+   * The tasks that only wait or poll. Its executor is always a cached pool and cannot be chosen.
+   */
+  CONTROL(false);
+
+  private boolean pipeline;
+
+  /**
+   * Instantiates a new Stage.
+   *
+   * @param pipeline true if every task of a job must run at once, since they wait on each other
+   */
+  Stage(boolean pipeline) {
+    this.pipeline = pipeline;
+  }
+
+  /**
+   * Tells whether every task of a job in this stage must run at once. A bounded executor of such
+   * a stage is never made narrower than the tasks in flight, or a producer waiting on a full
+   * queue could hold the thread its consumer needs.
+   *
+   * @return true for the producer and consumer stages
+   */
+  public boolean isPipeline() {
+    return pipeline;
+  }
+}
@@ -1,12 +1,18 @@
 package pool;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 
 /**
- * The type Thread pool that manages the multiple thread process.
+ * The type Thread pool that manages the multiple thread process. Every stage of the pipeline runs
+ * on its own executor, whose backend and size can be chosen per stage. Executors are created when
+ * their stage gets its first task.
  */
 public class ThreadPool {
 
@@ -19,13 +25,37 @@ public class ThreadPool {
    */
   private static int producerThreads = 1;
   /**
-   * The constant executor.
+   * The constant consumerThreads, or 0 to derive the consumers from MAX_THREADS.
    */
-  private static ExecutorService executor;
-
-  private static CountDownLatch producerLatch;
-
-  private static CountDownLatch consumerLatch;
+  private static int consumerThreads;
+  /**
+   * The constant RENDER_THREADS.
+   */
+  private static final int RENDER_THREADS = Math.max(1, MAX_THREADS / 2);
+  /**
+   * The constant FILES_PER_RUN.
+   */
+  private static final int FILES_PER_RUN = 2;
+  /**
+   * The constant filesInFlight that gives how many files are ingested at once.
+   */
+  private static int filesInFlight = FILES_PER_RUN;
+  /**
+   * The backend of every stage.
+   */
+  private static final Map<Stage, Backend> BACKENDS = new EnumMap<>(Stage.class);
+  /**
+   * The size of every bounded stage executor.
+   */
+  private static final Map<Stage, Integer> SIZES = new EnumMap<>(Stage.class);
+  /**
+   * The executor of every stage that got a task.
+   */
+  private static final Map<Stage, ExecutorService> EXECUTORS = new EnumMap<>(Stage.class);
+  /**
+   * The executors replaced by wider ones, which still finish their tasks.
+   */
+  private static final List<ExecutorService> RETIRED = new ArrayList<>();
 
   /**
    * Gets max threads.
@@ -37,27 +67,73 @@ public class ThreadPool {
   }
 
   /**
-   * Thread pool reset.
+   * Thread pool reset. The producers and consumers get fixed pools as wide as the jobs in flight
+   * need, writers get virtual threads and charts a fixed pool of RENDER_THREADS.
    */
-  public static void poolReset() {
-    executor = Executors.newCachedThreadPool();
+  public static synchronized void poolReset() {
+    EXECUTORS.clear();
+    RETIRED.clear();
+    producerThreads = 1;
+    consumerThreads = 0;
+    filesInFlight = FILES_PER_RUN;
+    BACKENDS.put(Stage.PRODUCE, Backend.FIXED);
+    BACKENDS.put(Stage.CONSUME, Backend.FIXED);
+    BACKENDS.put(Stage.MAP, Backend.FORK_JOIN);
+    BACKENDS.put(Stage.WRITE, Backend.VIRTUAL);
+    BACKENDS.put(Stage.RENDER, Backend.FIXED);
+    BACKENDS.put(Stage.CONTROL, Backend.CACHED);
+    for (Stage stage : Stage.values()) {
+      SIZES.put(stage, 0);
+    }
+    SIZES.put(Stage.MAP, MAX_THREADS);
+    SIZES.put(Stage.WRITE, MAX_THREADS);
+    SIZES.put(Stage.RENDER, RENDER_THREADS);
   }
 
   /**
-   * Gets producer threads.
+   * Sets the backend of a stage before its first task.
    *
-   * @return the producer threads
+   * @param stage the stage, any but MAP and CONTROL
+   * @param backend the backend
+   * @param threads the size of a bounded executor, or 0 to keep the default. Producer and
+   *     consumer executors are widened to the tasks in flight if needed.
    */
-  public static int getProducerThreads() {
-    return producerThreads;
+  public static synchronized void setBackend(Stage stage, Backend backend, int threads) {
+    if (stage == Stage.MAP || stage == Stage.CONTROL) {
+      throw new IllegalArgumentException("The executor of " + stage + " cannot be chosen.");
+    }
+    BACKENDS.put(stage, backend);
+    if (threads > 0) {
+      SIZES.put(stage, threads);
+    }
+  }
+
+  /**
+   * Make sure a stage can run the given number of tasks at once. A bounded executor that is too
+   * narrow is retired, it finishes the tasks it has, and the next task starts a wider one.
+   *
+   * @param stage the stage
+   * @param threads the number of tasks that must run at once
+   */
+  public static synchronized void ensureThreads(Stage stage, int threads) {
+    if (threads <= SIZES.get(stage)) {
+      return;
+    }
+    SIZES.put(stage, threads);
+    if (BACKENDS.get(stage).isBounded() && EXECUTORS.containsKey(stage)) {
+      ExecutorService retired = EXECUTORS.remove(stage);
+      retired.shutdown();
+      RETIRED.add(retired);
+    }
   }
 
   /**
-   * CountDownLatch reset.
+   * Gets producer threads.
+   *
+   * @return the producer threads
    */
-  public static void latchReset() {
-    producerLatch = new CountDownLatch(producerThreads);
-    consumerLatch = new CountDownLatch(MAX_THREADS);
+  public static int getProducerThreads() {
+    return producerThreads;
   }
 
   /**
@@ -70,49 +146,148 @@ public class ThreadPool {
   }
 
   /**
-   * Gets producer latch.
+   * Gets consumer threads per queue.
+   *
+   * @param special true if throughput and latency have their own queues
+   * @return the consumer threads, chosen by the user or derived from MAX_THREADS
+   */
+  public static int getConsumerThreads(boolean special) {
+    if (consumerThreads > 0) {
+      return consumerThreads;
+    }
+    return special ? Math.max(1, MAX_THREADS / 2) : MAX_THREADS;
+  }
+
+  /**
+   * Sets consumer threads per queue.
+   *
+   * @param consumerThreads the consumer threads, or 0 to derive them from MAX_THREADS
+   */
+  public static void setConsumerThreads(int consumerThreads) {
+    ThreadPool.consumerThreads = consumerThreads;
+  }
+
+  /**
+   * Gets how many files are ingested at once.
+   *
+   * @return the files in flight
+   */
+  public static int getFilesInFlight() {
+    return filesInFlight;
+  }
+
+  /**
+   * Sets how many files are ingested at once, which the producer and consumer executors are sized
+   * for.
+   *
+   * @param filesInFlight the files in flight
+   */
+  public static void setFilesInFlight(int filesInFlight) {
+    ThreadPool.filesInFlight = filesInFlight;
+  }
+
+  /**
+   * Add a new task to a stage.
    *
-   * @return the producer latch
+   * @param stage the stage
+   * @param runnable the runnable
    */
-  public static CountDownLatch getProducerLatch() {
-    return producerLatch;
+  public static void addThread(Stage stage, Runnable runnable) {
+    executorOf(stage).execute(runnable);
   }
 
   /**
-   * Gets consumer latch.
+   * Add a fork/join task to the map-reduce executor.
    *
-   * @return the consumer latch
+   * @param task the task
    */
-  public static CountDownLatch getConsumerLatch() {
-    return consumerLatch;
+  public static void addForkJoinTask(ForkJoinTask<?> task) {
+    ((ForkJoinPool) executorOf(Stage.MAP)).execute(task);
   }
 
   /**
-   * Add a new thread.
+   * Add a chart rendering task.
    *
    * @param runnable the runnable
    */
-  public static void addThread(Runnable runnable) {
-    executor.execute(runnable);
+  public static void addRenderTask(Runnable runnable) {
+    addThread(Stage.RENDER, runnable);
   }
 
   /**
-   * Stop the executor.
+   * Stop every executor but the chart executor.
    */
-  public static void stop() {
-    executor.shutdown();
+  public static synchronized void stop() {
+    for (Map.Entry<Stage, ExecutorService> entry : EXECUTORS.entrySet()) {
+      if (entry.getKey() != Stage.RENDER) {
+        entry.getValue().shutdown();
+      }
+    }
   }
 
   /**
-   * Sleep until all threads stop.
+   * Sleep until all threads stop. Writers may still add charts, so the chart executor is only
+   * stopped once the other executors have terminated.
    */
   public static void sleep() {
     try {
-      while (!executor.isTerminated()) {
-        executor.awaitTermination(100, TimeUnit.MILLISECONDS);
+      for (ExecutorService executor : executorsBut(Stage.RENDER)) {
+        await(executor);
+      }
+      ExecutorService render;
+      synchronized (ThreadPool.class) {
+        render = EXECUTORS.get(Stage.RENDER);
+      }
+      if (render != null) {
+        render.shutdown();
+        await(render);
       }
     } catch (InterruptedException ex) {
       System.out.println(ex.getMessage());
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Helper function that gets the executor of a stage, creating it on the first task.
+   *
+   * @param stage the stage
+   * @return the executor
+   */
+  private static synchronized ExecutorService executorOf(Stage stage) {
+    ExecutorService executor = EXECUTORS.get(stage);
+    if (executor == null) {
+      int threads = SIZES.get(stage);
+      executor = BACKENDS.get(stage).create(threads > 0 ? threads : MAX_THREADS);
+      EXECUTORS.put(stage, executor);
+    }
+    return executor;
+  }
+
+  /**
+   * Helper function that lists the executors of every stage but one, retired ones included.
+   *
+   * @param excluded the stage to leave out
+   * @return the executors
+   */
+  private static synchronized List<ExecutorService> executorsBut(Stage excluded) {
+    List<ExecutorService> executors = new ArrayList<>(RETIRED);
+    for (Map.Entry<Stage, ExecutorService> entry : EXECUTORS.entrySet()) {
+      if (entry.getKey() != excluded) {
+        executors.add(entry.getValue());
+      }
+    }
+    return executors;
+  }
+
+  /**
+   * Helper function that waits until an executor has terminated.
+   *
+   * @param executor the executor
+   * @throws InterruptedException if the thread is interrupted
+   */
+  private static void await(ExecutorService executor) throws InterruptedException {
+    while (!executor.isTerminated()) {
+      executor.awaitTermination(100, TimeUnit.MILLISECONDS);
+    }
+  }
+}
@@ -1,29 +1,32 @@
 package producer;
 
+import parser.RecordBatch;
+import pool.Job;
+import transport.Transport;
+
 import java.nio.channels.FileChannel;
-import java.util.concurrent.BlockingQueue;
 
 /**
  * The type Two Queues Producer that read one line from CSV file and send to two queues.
  */
 public class DoubleQueuesProducer extends ReqProducer {
 
-
-  private BlockingQueue<String> throughputQueue;
-  private BlockingQueue<String> latencyQueue;
+  private Transport<Object> throughputQueue;
+  private Transport<Object> latencyQueue;
 
   /**
    * Instantiates a new Csv parser.
    *
+   * @param job the job of the file
    * @param throughputQueue the throughput queue
    * @param latencyQueue the latency queue
    * @param channel the channel
    * @param begin the begin
    * @param end the end
    */
-  public DoubleQueuesProducer(BlockingQueue<String> throughputQueue,
-      BlockingQueue<String> latencyQueue, FileChannel channel, long begin, long end) {
-    super(channel, begin, end);
+  public DoubleQueuesProducer(Job job, Transport<Object> throughputQueue,
+      Transport<Object> latencyQueue, FileChannel channel, long begin, long end) {
+    super(job, channel, begin, end);
     this.throughputQueue = throughputQueue;
     this.latencyQueue = latencyQueue;
   }
@@ -39,6 +42,19 @@ public class DoubleQueuesProducer extends ReqProducer {
     latencyQueue.put(line);
   }
 
+  /**
+   * Put a batch of parsed records to the throughput queue and the latency queue. Both queues
+   * receive the same batch, which consumers only read.
+   *
+   * @param batch the batch of parsed records
+   * @throws InterruptedException if the thread is interrupted
+   */
+  @Override
+  public void putToQueue(RecordBatch batch) throws InterruptedException {
+    throughputQueue.put(batch);
+    latencyQueue.put(batch);
+  }
+
   @Override
   public String toString() {
     return "Double Queues ReqProducer: " + Thread.currentThread().getName();
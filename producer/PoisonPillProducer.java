@@ -0,0 +1,53 @@
+package producer;
+
+import pool.Job;
+import transport.Transport;
+
+/**
+ * The type Poison Pill Producer that closes a queue once every request producer has finished. It
+ * blocks on the producer latch and then puts one POISON_PILL per consumer of the queue, so each
+ * consumer takes exactly one pill after all the lines and stops.
+ */
+public class PoisonPillProducer implements Runnable {
+
+  /**
+   * The constant POISON_PILL that marks the end of a queue. It is compared by identity.
+   */
+  public static final String POISON_PILL = new String("END OF STREAM");
+  private Job job;
+  private Transport<Object> queue;
+  private int consumers;
+
+  /**
+   * Instantiates a new Poison Pill Producer.
+   *
+   * @param job the job whose producers fill the queue
+   * @param queue the queue to close
+   * @param consumers the number of consumers that take from the queue
+   */
+  public PoisonPillProducer(Job job, Transport<Object> queue, int consumers) {
+    this.job = job;
+    this.queue = queue;
+    this.consumers = consumers;
+  }
+
+  /**
+   * The run method implements the Runnable interface.
+   */
+  @Override
+  public void run() {
+    try {
+      job.getProducerLatch().await();
+      for (int i = 0; i < consumers; i++) {
+        queue.put(POISON_PILL);
+      }
+    } catch (InterruptedException ex) {
+      System.out.println(ex.getMessage());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Poison Pill Producer: " + Thread.currentThread().getName();
+  }
+}
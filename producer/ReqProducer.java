@@ -1,10 +1,23 @@
 package producer;
 
-import pool.ThreadPool;
+import cache.ColumnarCache;
+import cache.ColumnarCacheWriter;
+import gzip.GzipMemberInputStream;
+import metrics.PipelineMetrics;
+import parser.RecordBatch;
+import parser.RecordParser;
+import parser.RequestRecord;
+import pool.Job;
+import splitter.ChunkScheduler;
+import timer.PhaseProfiler;
+import timer.PhaseProfiler.Phase;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * Request Producer to read the data via file channel.
@@ -12,21 +25,114 @@ import java.nio.channels.FileChannel;
 public abstract class ReqProducer implements Runnable {
 
   private static final char SEPARATOR = '\n';
+  private static final int MAP_WINDOW = 1 << 28;
+  private static final int LINE_CAPACITY = 128;
+  private static final int FOLLOW_BUFFER = 1 << 16;
+  private static final int INFLATE_BUFFER = 1 << 16;
+  private static final long POLL_MILLIS = 200;
+  private Job job;
   private long begin;
   private long end;
   private FileChannel channel;
+  private boolean mapped;
+  private int batchSize;
+  private long followMillis;
+  private boolean compressed;
+  private ColumnarCache cache;
+  private ColumnarCacheWriter cacheWriter;
+  private ChunkScheduler scheduler;
+  private RecordParser parser;
+  private RequestRecord record;
+  private RecordBatch batch;
+  private PipelineMetrics metrics;
+  private int metricsSlot;
+  private long pendingRecords;
+  private long pendingBytes;
 
   /**
    * Instantiates a new Csv parser.
    *
+   * @param job the job of the file
    * @param channel the channel
    * @param begin the begin
    * @param end the end
    */
-  public ReqProducer(FileChannel channel, long begin, long end) {
+  public ReqProducer(Job job, FileChannel channel, long begin, long end) {
+    this.job = job;
     this.channel = channel;
     this.begin = begin;
     this.end = end;
+    this.parser = new RecordParser();
+    this.record = new RequestRecord();
+  }
+
+  /**
+   * Sets whether the range is read through memory-mapped regions instead of a heap buffer.
+   *
+   * @param mapped true to use the memory-mapped mode
+   */
+  public void setMapped(boolean mapped) {
+    this.mapped = mapped;
+  }
+
+  /**
+   * Sets the batch size. With a positive size the producer parses every line itself and hands
+   * batches of records downstream instead of one line at a time.
+   *
+   * @param batchSize the number of records per batch, or 0 to hand over lines
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Sets the follow mode. A following producer tails the file from its begin position as it grows
+   * and stops once no new bytes have arrived for the given time.
+   *
+   * @param followMillis the idle time in milliseconds after which to stop, or 0 to read the range
+   */
+  public void setFollow(long followMillis) {
+    this.followMillis = followMillis;
+  }
+
+  /**
+   * Sets whether the file is gzip compressed. The range then runs from member boundary to member
+   * boundary instead of line to line.
+   *
+   * @param compressed true to inflate the range
+   */
+  public void setCompressed(boolean compressed) {
+    this.compressed = compressed;
+  }
+
+  /**
+   * Sets the columnar cache to read. The channel then belongs to the cache file and the range
+   * covers whole blocks of it.
+   *
+   * @param cache the cache, or null to read the raw file
+   */
+  public void setCache(ColumnarCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Sets the writer that every batch is appended to before it is handed downstream. It only
+   * takes effect in batch mode.
+   *
+   * @param cacheWriter the cache writer, or null to write no cache
+   */
+  public void setCacheWriter(ColumnarCacheWriter cacheWriter) {
+    this.cacheWriter = cacheWriter;
+  }
+
+  /**
+   * Sets the scheduler to claim line-aligned chunks of the file from. The producer then reads
+   * chunk after chunk instead of its own [begin, end) range until the file is used up.
+   *
+   * @param scheduler the scheduler, or null to read the range
+   */
+  public void setScheduler(ChunkScheduler scheduler) {
+    this.scheduler = scheduler;
   }
 
   /**
@@ -36,7 +142,42 @@ public abstract class ReqProducer implements Runnable {
    * @throws IOException if the file is not found
    */
   public void parseData() throws InterruptedException, IOException {
-    StringBuilder builder = new StringBuilder();
+    readRange();
+    flushBatch();
+    channel.close();
+  }
+
+  /**
+   * Parse the chunks claimed from the scheduler, each through the heap buffer or the
+   * memory-mapped mode, until no chunk is left.
+   *
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the file is not found
+   */
+  public void parseChunks() throws InterruptedException, IOException {
+    long[] chunk;
+    while ((chunk = scheduler.claim()) != null) {
+      begin = chunk[0];
+      end = chunk[1];
+      if (mapped) {
+        readMappedRange();
+      } else {
+        readRange();
+      }
+    }
+    flushBatch();
+    channel.close();
+  }
+
+  /**
+   * Helper function that reads the [begin, end) range through a heap buffer.
+   *
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the file is not found
+   */
+  private void readRange() throws InterruptedException, IOException {
+    byte[] line = new byte[LINE_CAPACITY];
+    int length = 0;
     ByteBuffer buf = ByteBuffer.allocate(1024);
     channel.position(begin);
     boolean isEnd = false;
@@ -44,13 +185,16 @@ public abstract class ReqProducer implements Runnable {
     while (channel.read(buf) != -1 && !isEnd) {
       buf.flip();
       while (buf.hasRemaining()) {
-        char read = (char) buf.get();
+        byte read = buf.get();
         current++;
         if (read == SEPARATOR) {
-          putToQueue(builder.toString());
-          builder = new StringBuilder();
+          putLine(line, length);
+          length = 0;
         } else {
-          builder.append(read);
+          if (length == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+          }
+          line[length++] = read;
         }
         if (current >= end) {
           isEnd = true;
@@ -59,9 +203,276 @@ public abstract class ReqProducer implements Runnable {
       }
       buf.clear();
     }
+  }
+
+  /**
+   * Tail the file as it grows. The producer keeps its own read position on the channel, hands
+   * every complete line downstream and keeps a trailing partial line until its separator arrives.
+   * When the end of the file is reached it flushes the current batch and polls again, so records
+   * reach the consumers within a poll interval. A partial line still pending when it stops is
+   * dropped.
+   *
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the file is not found
+   */
+  public void followData() throws InterruptedException, IOException {
+    byte[] line = new byte[LINE_CAPACITY];
+    int length = 0;
+    ByteBuffer buf = ByteBuffer.allocate(FOLLOW_BUFFER);
+    long position = begin;
+    long lastRead = System.currentTimeMillis();
+    while (true) {
+      int read = channel.read(buf, position);
+      if (read <= 0) {
+        flushBatch();
+        if (System.currentTimeMillis() - lastRead >= followMillis) {
+          break;
+        }
+        Thread.sleep(POLL_MILLIS);
+        continue;
+      }
+      lastRead = System.currentTimeMillis();
+      position += read;
+      buf.flip();
+      while (buf.hasRemaining()) {
+        byte current = buf.get();
+        if (current == SEPARATOR) {
+          putLine(line, length);
+          length = 0;
+        } else {
+          if (length == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+          }
+          line[length++] = current;
+        }
+      }
+      buf.clear();
+    }
+    //like the other readers, drop a last line that has no separator.
+    flushBatch();
+    channel.close();
+  }
+
+  /**
+   * Inflate the gzip members in the [begin, end) range. Ranges start on member boundaries, which
+   * fall anywhere in a line, so a range after the first skips through its first separator and
+   * every range reads on into the members beyond its end to finish its last line, the line the
+   * next range skips. A last line of the file without a separator is dropped.
+   *
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the file is not found or a member is corrupt
+   */
+  public void parseCompressedData() throws InterruptedException, IOException {
+    byte[] line = new byte[LINE_CAPACITY];
+    int length = 0;
+    boolean skipping = begin > 0;
+    boolean isEnd = begin >= end;
+    byte[] buf = new byte[INFLATE_BUFFER];
+    try (GzipMemberInputStream input = new GzipMemberInputStream(channel, begin, end)) {
+      int read;
+      while (!isEnd && (read = input.read(buf)) != -1) {
+        boolean beyond = input.isBeyondEnd();
+        for (int i = 0; i < read; i++) {
+          byte current = buf[i];
+          if (current == SEPARATOR) {
+            if (!skipping) {
+              putLine(line, length);
+            }
+            skipping = false;
+            length = 0;
+            if (beyond) {
+              isEnd = true;
+              break;
+            }
+          } else if (!skipping) {
+            if (length == line.length) {
+              line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[length++] = current;
+          }
+        }
+      }
+    }
+    //like the other readers, drop a last line that has no separator.
+    flushBatch();
+    channel.close();
+  }
+
+  /**
+   * Decode the blocks of the columnar cache in the [begin, end) range. The range is mapped in
+   * windows that end on a block boundary, and every block is handed downstream as one batch
+   * without any text parsing.
+   *
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the cache is not found or a block is longer than a mapping window
+   */
+  public void parseCachedData() throws InterruptedException, IOException {
+    long position = begin;
+    while (position < end) {
+      int size = (int) Math.min(MAP_WINDOW, end - position);
+      MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+      int offset = 0;
+      while (offset + 4 <= size
+          && offset + ColumnarCache.blockSize(buf.getInt(offset)) <= size) {
+        RecordBatch cached = new RecordBatch(buf.getInt(offset));
+        int next = cache.decode(buf, offset, cached, record);
+        if (metrics != null) {
+          count(cached.size(), next - offset);
+        }
+        offset = next;
+        putToQueue(cached);
+      }
+      if (offset == 0) {
+        throw new IOException("Block at " + position + " exceeds " + MAP_WINDOW + " bytes.");
+      }
+      position += offset;
+    }
+    channel.close();
+  }
+
+  /**
+   * Parse the data by mapping the [begin, end) range in windows and scanning the mapped bytes for
+   * the separator directly. Each line is copied once into a reusable array and decoded into a
+   * single String. A window always restarts at the first byte after its last complete line, so no
+   * line is split across two mappings.
+   *
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the file is not found or a line is longer than a mapping window
+   */
+  public void parseMappedData() throws InterruptedException, IOException {
+    readMappedRange();
+    flushBatch();
     channel.close();
   }
 
+  /**
+   * Helper function that reads the [begin, end) range through memory-mapped windows.
+   *
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the file is not found or a line is longer than a mapping window
+   */
+  private void readMappedRange() throws InterruptedException, IOException {
+    byte[] line = new byte[LINE_CAPACITY];
+    long position = begin;
+    while (position < end) {
+      int size = (int) Math.min(MAP_WINDOW, end - position);
+      boolean lastWindow = position + size >= end;
+      MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+      int lineStart = 0;
+      for (int i = 0; i < size; i++) {
+        if (buf.get(i) == SEPARATOR) {
+          line = putMappedLine(buf, lineStart, i, line);
+          lineStart = i + 1;
+        }
+      }
+      if (lastWindow) {
+        //like the heap reader, drop a last line that has no separator.
+        position = end;
+      } else if (lineStart == 0) {
+        throw new IOException("Line at " + position + " exceeds " + MAP_WINDOW + " bytes.");
+      } else {
+        position += lineStart;
+      }
+    }
+  }
+
+  /**
+   * Helper function that copies one mapped line into the reusable array and hands it downstream.
+   *
+   * @param buf the mapped buffer
+   * @param from the first byte of the line
+   * @param to the separator position, exclusive
+   * @param line the reusable line array
+   * @return the line array, grown if the line did not fit
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the batch cannot be cached
+   */
+  private byte[] putMappedLine(MappedByteBuffer buf, int from, int to, byte[] line)
+      throws InterruptedException, IOException {
+    int length = to - from;
+    if (length > line.length) {
+      line = new byte[Math.max(length, line.length * 2)];
+    }
+    buf.position(from);
+    buf.get(line, 0, length);
+    putLine(line, length);
+    return line;
+  }
+
+  /**
+   * Helper function that hands one line downstream, either as a String or, in batch mode, as a
+   * parsed record appended to the current batch. A full batch is put to the queue at once.
+   *
+   * @param line the array holding the line
+   * @param length the length of the line
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the batch cannot be cached
+   */
+  private void putLine(byte[] line, int length) throws InterruptedException, IOException {
+    if (metrics != null) {
+      count(1, length + 1);
+    }
+    if (batchSize <= 0) {
+      putToQueue(new String(line, 0, length, StandardCharsets.ISO_8859_1));
+      return;
+    }
+    if (batch == null) {
+      batch = new RecordBatch(batchSize);
+    }
+    if (parser.parse(line, 0, length, record)) {
+      batch.add(record);
+      if (batch.isFull()) {
+        if (cacheWriter != null) {
+          cacheWriter.append(batch, record);
+        }
+        putToQueue(batch);
+        batch = null;
+      }
+    }
+  }
+
+  /**
+   * Helper function that puts the last, partly filled batch to the queue.
+   *
+   * @throws InterruptedException if the thread is interrupted
+   * @throws IOException if the batch cannot be cached
+   */
+  private void flushBatch() throws InterruptedException, IOException {
+    publish();
+    if (batch != null && batch.size() > 0) {
+      if (cacheWriter != null) {
+        cacheWriter.append(batch, record);
+      }
+      putToQueue(batch);
+    }
+    batch = null;
+  }
+
+  /**
+   * Helper function that counts what the producer read and publishes it to the metrics in steps.
+   *
+   * @param records the records read
+   * @param bytes the bytes read
+   */
+  private void count(long records, long bytes) {
+    pendingRecords += records;
+    pendingBytes += bytes;
+    if (pendingRecords >= PipelineMetrics.PUBLISH_RECORDS) {
+      publish();
+    }
+  }
+
+  /**
+   * Helper function that publishes the counts not yet published to the metrics.
+   */
+  private void publish() {
+    if (metrics != null && (pendingRecords > 0 || pendingBytes > 0)) {
+      metrics.addRead(metricsSlot, pendingRecords, pendingBytes);
+    }
+    pendingRecords = 0;
+    pendingBytes = 0;
+  }
+
   /**
    * Helper function that implemented by subclass to determine whether use one queue or two queue.
    *
@@ -71,18 +482,58 @@ public abstract class ReqProducer implements Runnable {
   abstract void putToQueue(String line) throws InterruptedException;
 
   /**
-   * The run method implements the Runnable interface.
+   * Helper function that implemented by subclass to determine whether use one queue or two queue.
+   *
+   * @param batch the batch of parsed records
+   * @throws InterruptedException if the thread is interrupted
+   */
+  abstract void putToQueue(RecordBatch batch) throws InterruptedException;
+
+  /**
+   * The run method implements the Runnable interface. If the file cannot be read to the end, the
+   * job is marked failed before the latch is counted down, so its writers write nothing instead of
+   * truncated results.
    */
   @Override
   public void run() {
     System.out.println(this + " start");
+    metrics = job.getMetrics();
+    if (metrics != null) {
+      metricsSlot = metrics.claimProducer();
+    }
+    Phase ingestion = PhaseProfiler.start(job.getFileName(), "ingestion");
     try {
-      this.parseData();
-      ThreadPool.getProducerLatch().countDown();
+      if (cache != null) {
+        this.parseCachedData();
+      } else if (followMillis > 0) {
+        this.followData();
+      } else if (compressed) {
+        this.parseCompressedData();
+      } else if (scheduler != null) {
+        this.parseChunks();
+      } else if (mapped) {
+        this.parseMappedData();
+      } else {
+        this.parseData();
+      }
     } catch (InterruptedException ex) {
       System.out.println(ex.getMessage());
+      if (cacheWriter != null) {
+        cacheWriter.abort();
+      }
     } catch (IOException ex) {
-      System.out.println(ex.getMessage());
+      System.out.println("ERROR: " + this + " failed: " + ex.getMessage());
+      job.fail(ex);
+      if (cacheWriter != null) {
+        cacheWriter.abort();
+      }
+    } finally {
+      ingestion.end();
+      publish();
+      if (cacheWriter != null) {
+        cacheWriter.release();
+      }
+      job.getProducerLatch().countDown();
     }
     System.out.println(this + " end");
   }
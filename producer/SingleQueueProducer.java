@@ -1,26 +1,30 @@
 package producer;
 
+import parser.RecordBatch;
+import pool.Job;
+import transport.Transport;
+
 import java.nio.channels.FileChannel;
-import java.util.concurrent.BlockingQueue;
 
 /**
  * The type Single Queue Producer that read one line from CSV file and only send to one queue.
  */
 public class SingleQueueProducer extends ReqProducer {
 
-  private BlockingQueue<String> queue;
+  private Transport<Object> queue;
 
   /**
    * Instantiates a new Csv parser.
    *
+   * @param job the job of the file
    * @param queue the queue
    * @param channel the channel
    * @param begin the begin
    * @param end the end
    */
-  public SingleQueueProducer(BlockingQueue<String> queue, FileChannel channel, long begin,
+  public SingleQueueProducer(Job job, Transport<Object> queue, FileChannel channel, long begin,
       long end) {
-    super(channel, begin, end);
+    super(job, channel, begin, end);
     this.queue = queue;
   }
 
@@ -34,6 +38,17 @@ public class SingleQueueProducer extends ReqProducer {
     queue.put(line);
   }
 
+  /**
+   * Put a batch of parsed records to the queue.
+   *
+   * @param batch the batch of parsed records
+   * @throws InterruptedException if the thread is interrupted
+   */
+  @Override
+  public void putToQueue(RecordBatch batch) throws InterruptedException {
+    queue.put(batch);
+  }
+
   @Override
   public String toString() {
     return "Single Queue ReqProducer: " + Thread.currentThread().getName();
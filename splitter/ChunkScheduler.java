@@ -0,0 +1,97 @@
+package splitter;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The type Chunk scheduler that hands out a file in many line-aligned chunks to whichever producer
+ * asks next. Producers claim chunks from a shared cursor, so a producer that hits a slow region
+ * or dense lines simply claims fewer chunks instead of holding up the others. Chunk boundaries
+ * are found lazily: a cut is moved forward to the first line start at or after it, and both
+ * chunks beside a cut move it the same way, so every line belongs to exactly one chunk.
+ */
+public class ChunkScheduler {
+
+  private static final int SCAN_BUFFER = 4096;
+  private String fileName;
+  private long length;
+  private long chunkSize;
+  private char separator;
+  private AtomicLong cursor;
+
+  /**
+   * Instantiates a new Chunk scheduler.
+   *
+   * @param fileName the file to split
+   * @param chunkSize the size of a chunk in bytes before alignment
+   * @param separator the line separator
+   * @throws IOException if the file cannot be read
+   */
+  public ChunkScheduler(String fileName, long chunkSize, char separator) throws IOException {
+    this.fileName = fileName;
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(fileName, "r")) {
+      this.length = randomAccessFile.length();
+    }
+    this.chunkSize = chunkSize;
+    this.separator = separator;
+    this.cursor = new AtomicLong();
+  }
+
+  /**
+   * Claims the next chunk.
+   *
+   * @return the begin and end index of the chunk, or null when the file is used up
+   * @throws IOException if the file cannot be read
+   */
+  public long[] claim() throws IOException {
+    while (true) {
+      long cut = cursor.getAndAdd(chunkSize);
+      if (cut >= length) {
+        return null;
+      }
+      long begin = align(cut);
+      long end = align(Math.min(length, cut + chunkSize));
+      if (begin < end) {
+        return new long[]{begin, end};
+      }
+    }
+  }
+
+  /**
+   * Helper function that moves a cut to the first line start at or after it.
+   *
+   * @param cut the cut
+   * @return the aligned index
+   * @throws IOException if the file cannot be read
+   */
+  private long align(long cut) throws IOException {
+    if (cut == 0 || cut >= length) {
+      return Math.min(cut, length);
+    }
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(fileName, "r")) {
+      FileChannel channel = randomAccessFile.getChannel();
+      ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER);
+      long position = cut - 1;
+      while (channel.read(buf, position) > 0) {
+        buf.flip();
+        while (buf.hasRemaining()) {
+          position++;
+          if (buf.get() == separator) {
+            return position;
+          }
+        }
+        buf.clear();
+      }
+      return length;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ChunkScheduler{" + "fileName='" + fileName + '\'' + ", chunkSize=" + chunkSize
+        + ", claimed=" + Math.min(cursor.get(), length) + '}';
+  }
+}
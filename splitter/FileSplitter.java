@@ -1,13 +1,16 @@
 package splitter;
 
-import java.io.BufferedWriter;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
-import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Helper to split file into different segments.
@@ -15,63 +18,61 @@ import java.nio.channels.FileChannel;
 public class FileSplitter {
 
   /**
-   * Main function to split the file as indexes indicate.
+   * Split the file as indexes indicate, writing all segments at once. Every segment is copied
+   * with FileChannel.transferTo on its own thread, so the bytes go from file to file without
+   * passing through the Java heap and are copied exactly.
    * @param file target file
    * @param beginIndexes start index for each segment
    * @param endIndexes end index for each segment
+   * @throws IOException if a segment cannot be written
    */
-  public static void splitFile(String file, long[] beginIndexes, long[] endIndexes) {
+  public static void splitFileParallel(String file, long[] beginIndexes, long[] endIndexes)
+      throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, beginIndexes.length));
+    List<Future<Void>> segments = new ArrayList<>();
     for (int i = 0; i < beginIndexes.length; i++) {
-      writeHelper(file, beginIndexes[i], endIndexes[i], i, '\n');
+      final long begin = beginIndexes[i];
+      final long end = endIndexes[i];
+      final int segValue = i;
+      segments.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          transferHelper(file, begin, end, segValue);
+          return null;
+        }
+      }));
+    }
+    executor.shutdown();
+    try {
+      for (Future<Void> segment : segments) {
+        segment.get();
+      }
+    } catch (InterruptedException ex) {
+      throw new IOException(ex.getMessage());
+    } catch (ExecutionException ex) {
+      throw new IOException("Something went wrong! : " + ex.getCause().getMessage());
     }
   }
 
   /**
-   * Helper to write the corresponding part.
+   * Helper to copy the corresponding part with transferTo.
    * @param file target file
    * @param begin start index in target file
    * @param end end index in target file
    * @param segValue segment number
-   * @param separator separator for line
+   * @throws IOException if the part cannot be copied
    */
-  private static void writeHelper(String file, long begin, long end, int segValue, char separator) {
-    try (BufferedWriter output = new BufferedWriter(
-        new OutputStreamWriter(new FileOutputStream(file.replace(".csv", segValue + ".csv")),
-            "UTF-8"))) {
-      //read the file.
-      RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
-      FileChannel channel = randomAccessFile.getChannel();
-      StringBuilder builder = new StringBuilder();
-      ByteBuffer buf = ByteBuffer.allocate(1024);
-      channel.position(begin);
-      boolean isEnd = false;
-      long current = begin;
-      while (channel.read(buf) != -1 && !isEnd) {
-        buf.flip();
-        while (buf.hasRemaining()) {
-          char read = (char) buf.get();
-          current++;
-          if (read == separator) {
-            builder.append(read);
-            output.write(builder.toString());
-            builder = new StringBuilder();
-          } else {
-            builder.append(read);
-          }
-          if (current >= end) {
-            isEnd = true;
-            break;
-          }
-        }
-        buf.clear();
+  private static void transferHelper(String file, long begin, long end, int segValue)
+      throws IOException {
+    try (FileChannel input = new RandomAccessFile(file, "r").getChannel();
+        FileChannel output = new FileOutputStream(file.replace(".csv", segValue + ".csv"))
+            .getChannel()) {
+      long position = begin;
+      long last = Math.min(end, input.size());
+      while (position < last) {
+        position += input.transferTo(position, last - position, output);
       }
-      channel.close();
-      output.close();
-      System.out.println("Split original file " + file + segValue);
-    } catch (FileNotFoundException fnfe) {
-      System.out.println("Input file not found! : " + fnfe.getMessage());
-    } catch (IOException ioe) {
-      System.out.println("Something went wrong! : " + ioe.getMessage());
     }
+    System.out.println("Split original file " + file + segValue);
   }
 }
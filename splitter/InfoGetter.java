@@ -1,11 +1,15 @@
 package splitter;
 
+import gzip.GzipMembers;
+
 import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.RandomAccessFile;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Class to help get the information we need.
@@ -80,14 +84,17 @@ public class InfoGetter {
   }
 
   /**
-   * Get the start time from the first line of the file.
+   * Get the start time from the first line of the file, inflating it for a gzip file.
    *
    * @throws FileNotFoundException the file not found exception
    * @throws IOException the IO exception
    */
   private void startTimeStampGetter() throws FileNotFoundException, IOException {
-    BufferedReader reader = new BufferedReader(
-        new InputStreamReader(new FileInputStream(fileName), "UTF-8"));
+    InputStream input = new FileInputStream(fileName);
+    if (GzipMembers.isCompressed(fileName)) {
+      input = new GZIPInputStream(input);
+    }
+    BufferedReader reader = new BufferedReader(new InputStreamReader(input, "UTF-8"));
     String line;
     if ((line = reader.readLine()) != null) {
       startTime = Long.parseLong(line.split(splitRegex)[0].replaceAll("\"", ""));
@@ -96,11 +103,18 @@ public class InfoGetter {
   }
 
   /**
-   * Separate the file into different parts.
+   * Separate the file into different parts. A gzip file is separated on member boundaries, so
+   * the parts are not line-aligned.
    *
    * @throws IOException the IO exception
    */
   private void getIndex() throws IOException {
+    if (GzipMembers.isCompressed(fileName)) {
+      long[][] ranges = GzipMembers.split(fileName, threadCount);
+      beginIndexs = ranges[0];
+      endIndexs = ranges[1];
+      return;
+    }
     RandomAccessFile randomAccessFile = new RandomAccessFile(fileName, "r");
     long fileTotalLength = randomAccessFile.length();
     long gap = fileTotalLength / threadCount;
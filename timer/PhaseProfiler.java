@@ -0,0 +1,282 @@
+package timer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The type Phase profiler that measures the phases of every input file: computing the indexes,
+ * splitting, ingestion by the producers, aggregation by the consumers, every writer and every
+ * chart. A phase is timed on the thread that runs it, by wall clock and by the CPU time of that
+ * thread, and phases run by several threads are summed while their span runs from the first
+ * start to the last end. The total run time is always printed at the end, the breakdown as text
+ * and JSON only when a report file is set.
+ */
+public class PhaseProfiler {
+
+  private static final double MILLION = 1e6;
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final boolean CPU_TIME = enableCpuTime();
+  private static final Map<String, Map<String, Stats>> FILES = new LinkedHashMap<>();
+  private static long start;
+  private static String reportFile;
+
+  /**
+   * Reset the profiler and start the total run time.
+   */
+  public static synchronized void reset() {
+    FILES.clear();
+    reportFile = null;
+    start = System.nanoTime();
+  }
+
+  /**
+   * Sets the JSON file that the breakdown is written to at the end. Setting it also prints the
+   * breakdown as text.
+   *
+   * @param fileName the JSON file
+   */
+  public static synchronized void setReportFile(String fileName) {
+    reportFile = fileName;
+  }
+
+  /**
+   * Start a phase on the current thread.
+   *
+   * @param fileName the input file the phase works on
+   * @param phase the phase name
+   * @return the running phase, to be ended on the same thread
+   */
+  public static Phase start(String fileName, String phase) {
+    return new Phase(fileName, phase);
+  }
+
+  /**
+   * Wrap a task so that its run is measured as a phase.
+   *
+   * @param fileName the input file the task works on
+   * @param phase the phase name
+   * @param task the task
+   * @return the measured task
+   */
+  public static Runnable profile(final String fileName, final String phase, final Runnable task) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        Phase running = start(fileName, phase);
+        try {
+          task.run();
+        } finally {
+          running.end();
+        }
+      }
+    };
+  }
+
+  /**
+   * Stop the profiler. It prints the breakdown and writes the report file if one is set, then
+   * the total run time in seconds.
+   */
+  public static synchronized void stop() {
+    long total = System.nanoTime() - start;
+    if (reportFile != null) {
+      System.out.print(toText());
+      try {
+        Files.write(Paths.get(reportFile), toJson(total).getBytes(StandardCharsets.UTF_8));
+        System.out.println("Generate: " + reportFile);
+      } catch (IOException ex) {
+        System.out.println("ERROR: something went wrong: " + ex.getMessage());
+      }
+    }
+    System.out.println(total / 1000000 / 1000.0 + "s");
+  }
+
+  /**
+   * Helper function that adds an ended phase to its file.
+   *
+   * @param phase the ended phase
+   * @param wall the wall clock time in nanoseconds
+   * @param cpu the CPU time in nanoseconds, or a negative value if unknown
+   * @param end the end time in nanoseconds
+   */
+  private static synchronized void record(Phase phase, long wall, long cpu, long end) {
+    Map<String, Stats> phases = FILES.get(phase.fileName);
+    if (phases == null) {
+      phases = new LinkedHashMap<>();
+      FILES.put(phase.fileName, phases);
+    }
+    Stats stats = phases.get(phase.name);
+    if (stats == null) {
+      stats = new Stats(phase.startNanos);
+      phases.put(phase.name, stats);
+    }
+    stats.threads++;
+    stats.wall += wall;
+    stats.cpu = cpu < 0 || stats.cpu < 0 ? -1 : stats.cpu + cpu;
+    stats.first = Math.min(stats.first, phase.startNanos);
+    stats.last = Math.max(stats.last, end);
+  }
+
+  /**
+   * Helper function that formats the breakdown as text, one table per input file.
+   *
+   * @return the text
+   */
+  private static String toText() {
+    StringBuilder text = new StringBuilder();
+    for (Map.Entry<String, Map<String, Stats>> file : FILES.entrySet()) {
+      text.append("Phases of ").append(file.getKey()).append(System.lineSeparator());
+      text.append(String.format("  %-28s %8s %12s %12s %12s%n", "Phase", "Threads", "Span ms",
+          "Wall ms", "CPU ms"));
+      for (Map.Entry<String, Stats> phase : file.getValue().entrySet()) {
+        Stats stats = phase.getValue();
+        text.append(String.format("  %-28s %8d %12.1f %12.1f %12s%n", phase.getKey(),
+            stats.threads, (stats.last - stats.first) / MILLION, stats.wall / MILLION,
+            stats.cpu < 0 ? "n/a" : String.format("%.1f", stats.cpu / MILLION)));
+      }
+    }
+    return text.toString();
+  }
+
+  /**
+   * Helper function that formats the breakdown as JSON.
+   *
+   * @param total the total run time in nanoseconds
+   * @return the JSON document
+   */
+  private static String toJson(long total) {
+    StringBuilder json = new StringBuilder("{\n  \"totalMillis\": ")
+        .append(millis(total)).append(",\n  \"files\": [");
+    String fileSeparator = "\n";
+    for (Map.Entry<String, Map<String, Stats>> file : FILES.entrySet()) {
+      json.append(fileSeparator).append("    {\"file\": ").append(quote(file.getKey()))
+          .append(", \"phases\": [");
+      String phaseSeparator = "\n";
+      for (Map.Entry<String, Stats> phase : file.getValue().entrySet()) {
+        Stats stats = phase.getValue();
+        json.append(phaseSeparator).append("      {\"phase\": ").append(quote(phase.getKey()))
+            .append(", \"threads\": ").append(stats.threads)
+            .append(", \"spanMillis\": ").append(millis(stats.last - stats.first))
+            .append(", \"wallMillis\": ").append(millis(stats.wall))
+            .append(", \"cpuMillis\": ").append(stats.cpu < 0 ? "null" : millis(stats.cpu))
+            .append('}');
+        phaseSeparator = ",\n";
+      }
+      json.append("\n    ]}");
+      fileSeparator = ",\n";
+    }
+    return json.append("\n  ]\n}\n").toString();
+  }
+
+  /**
+   * Helper function that writes nanoseconds as a JSON number of milliseconds. The format uses
+   * Locale.ROOT, so the decimal separator is always a dot.
+   *
+   * @param nanos the nanoseconds
+   * @return the milliseconds
+   */
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / MILLION);
+  }
+
+  /**
+   * Helper function that quotes a JSON string.
+   *
+   * @param value the string
+   * @return the quoted string
+   */
+  private static String quote(String value) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      char current = value.charAt(i);
+      if (current == '"' || current == '\\') {
+        quoted.append('\\').append(current);
+      } else if (current < ' ') {
+        quoted.append(String.format("\\u%04x", (int) current));
+      } else {
+        quoted.append(current);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  /**
+   * Helper function that turns on thread CPU time measurement where the JVM supports it.
+   *
+   * @return true if the CPU time of the current thread can be read
+   */
+  private static boolean enableCpuTime() {
+    try {
+      if (!THREADS.isCurrentThreadCpuTimeSupported()) {
+        return false;
+      }
+      if (!THREADS.isThreadCpuTimeEnabled()) {
+        THREADS.setThreadCpuTimeEnabled(true);
+      }
+      return true;
+    } catch (UnsupportedOperationException | SecurityException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * The type Phase that is one running measurement on one thread.
+   */
+  public static class Phase {
+
+    private String fileName;
+    private String name;
+    private long startNanos;
+    private long startCpu;
+
+    /**
+     * Instantiates a new Phase that starts now on the current thread.
+     *
+     * @param fileName the input file
+     * @param name the phase name
+     */
+    Phase(String fileName, String name) {
+      this.fileName = fileName;
+      this.name = name;
+      this.startCpu = CPU_TIME ? THREADS.getCurrentThreadCpuTime() : -1;
+      this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * End the phase on the thread that started it.
+     */
+    public void end() {
+      long end = System.nanoTime();
+      long cpu = startCpu < 0 ? -1 : THREADS.getCurrentThreadCpuTime() - startCpu;
+      record(this, end - startNanos, cpu, end);
+    }
+  }
+
+  /**
+   * The statistics of one phase of one file.
+   */
+  private static class Stats {
+
+    private int threads;
+    private long wall;
+    private long cpu;
+    private long first;
+    private long last;
+
+    /**
+     * Instantiates new Stats.
+     *
+     * @param first the start of the first thread
+     */
+    Stats(long first) {
+      this.first = first;
+      this.last = first;
+    }
+  }
+}
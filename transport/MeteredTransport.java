@@ -0,0 +1,84 @@
+package transport;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The type Metered transport that wraps another transport and measures how long producers wait
+ * in put while it is full and consumers wait in take while it is empty. Every operation first
+ * tries the non-blocking variant, so the clock is only read when a thread really has to wait.
+ *
+ * @param <E> the type of the items
+ */
+public class MeteredTransport<E> implements Transport<E> {
+
+  private Transport<E> delegate;
+  private LongAdder putBlockedNanos = new LongAdder();
+  private LongAdder takeBlockedNanos = new LongAdder();
+
+  /**
+   * Instantiates a new Metered transport.
+   *
+   * @param delegate the transport to measure
+   */
+  public MeteredTransport(Transport<E> delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void put(E item) throws InterruptedException {
+    if (!delegate.offer(item)) {
+      long start = System.nanoTime();
+      delegate.put(item);
+      putBlockedNanos.add(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    E item = delegate.poll();
+    if (item == null) {
+      long start = System.nanoTime();
+      item = delegate.take();
+      takeBlockedNanos.add(System.nanoTime() - start);
+    }
+    return item;
+  }
+
+  @Override
+  public boolean offer(E item) {
+    return delegate.offer(item);
+  }
+
+  @Override
+  public E poll() {
+    return delegate.poll();
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  /**
+   * Gets the total time producers waited in put.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getPutBlockedNanos() {
+    return putBlockedNanos.sum();
+  }
+
+  /**
+   * Gets the total time consumers waited in take.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getTakeBlockedNanos() {
+    return takeBlockedNanos.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "MeteredTransport{" + delegate + '}';
+  }
+}
@@ -0,0 +1,54 @@
+package transport;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The type Queue transport that hands items over through an ArrayBlockingQueue, guarded by one
+ * lock for both ends.
+ *
+ * @param <E> the type of the items
+ */
+public class QueueTransport<E> implements Transport<E> {
+
+  private BlockingQueue<E> queue;
+
+  /**
+   * Instantiates a new Queue transport.
+   *
+   * @param capacity the capacity
+   */
+  public QueueTransport(int capacity) {
+    this.queue = new ArrayBlockingQueue<>(capacity);
+  }
+
+  @Override
+  public void put(E item) throws InterruptedException {
+    queue.put(item);
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    return queue.take();
+  }
+
+  @Override
+  public boolean offer(E item) {
+    return queue.offer(item);
+  }
+
+  @Override
+  public E poll() {
+    return queue.poll();
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+
+  @Override
+  public String toString() {
+    return "QueueTransport{" + "size=" + queue.size() + '}';
+  }
+}
@@ -0,0 +1,138 @@
+package transport;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The type Ring buffer transport that hands items over through a bounded lock-free ring. Every
+ * slot carries a sequence number that tells producers when it is free and consumers when it is
+ * filled, so any number of producers and consumers claim slots by a compare-and-set on the tail or
+ * head counter without taking a lock. The two counters are padded apart so that producers and
+ * consumers do not share a cache line. A thread that finds the ring full or empty spins briefly,
+ * then yields, then parks, so idle threads do not hold a core.
+ *
+ * @param <E> the type of the items
+ */
+public class RingBufferTransport<E> implements Transport<E> {
+
+  private static final int PADDING = 16;
+  private static final int HEAD = PADDING;
+  private static final int TAIL = PADDING * 2;
+  private static final int SPINS = 100;
+  private static final int YIELDS = 100;
+  private static final long PARK_NANOS = 50_000L;
+  private final int mask;
+  private final AtomicReferenceArray<E> items;
+  private final AtomicLongArray slotSequences;
+  private final AtomicLongArray counters;
+
+  /**
+   * Instantiates a new Ring buffer transport.
+   *
+   * @param capacity the minimum capacity, rounded up to a power of two
+   */
+  public RingBufferTransport(int capacity) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.mask = size - 1;
+    this.items = new AtomicReferenceArray<>(size);
+    this.slotSequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      slotSequences.set(i, i);
+    }
+    this.counters = new AtomicLongArray(PADDING * 3);
+  }
+
+  @Override
+  public void put(E item) throws InterruptedException {
+    int attempt = 0;
+    while (!offer(item)) {
+      idle(attempt++);
+    }
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    int attempt = 0;
+    E item;
+    while ((item = poll()) == null) {
+      idle(attempt++);
+    }
+    return item;
+  }
+
+  @Override
+  public boolean offer(E item) {
+    long tail = counters.get(TAIL);
+    while (true) {
+      int index = (int) tail & mask;
+      long difference = slotSequences.get(index) - tail;
+      if (difference == 0) {
+        if (counters.compareAndSet(TAIL, tail, tail + 1)) {
+          items.lazySet(index, item);
+          slotSequences.lazySet(index, tail + 1);
+          return true;
+        }
+        tail = counters.get(TAIL);
+      } else if (difference < 0) {
+        return false;
+      } else {
+        tail = counters.get(TAIL);
+      }
+    }
+  }
+
+  @Override
+  public E poll() {
+    long head = counters.get(HEAD);
+    while (true) {
+      int index = (int) head & mask;
+      long difference = slotSequences.get(index) - (head + 1);
+      if (difference == 0) {
+        if (counters.compareAndSet(HEAD, head, head + 1)) {
+          E item = items.get(index);
+          items.lazySet(index, null);
+          slotSequences.lazySet(index, head + mask + 1);
+          return item;
+        }
+        head = counters.get(HEAD);
+      } else if (difference < 0) {
+        return null;
+      } else {
+        head = counters.get(HEAD);
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    long filled = counters.get(TAIL) - counters.get(HEAD);
+    return (int) Math.max(0, Math.min(mask + 1, filled));
+  }
+
+  /**
+   * Helper function that backs off after a failed attempt: spin, then yield, then park.
+   *
+   * @param attempt the number of failed attempts so far
+   * @throws InterruptedException if the thread is interrupted
+   */
+  private static void idle(int attempt) throws InterruptedException {
+    if (attempt < SPINS) {
+      return;
+    }
+    if (attempt < SPINS + YIELDS) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(PARK_NANOS);
+    }
+    if (Thread.interrupted()) {
+      throw new InterruptedException("Interrupted while waiting on the ring buffer.");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RingBufferTransport{" + "capacity=" + (mask + 1) + ", head=" + counters.get(HEAD)
+        + ", tail=" + counters.get(TAIL) + '}';
+  }
+}
@@ -0,0 +1,48 @@
+package transport;
+
+/**
+ * The interface represents the handoff between producer and consumer threads. Both operations
+ * wait while the transport is full or empty.
+ *
+ * @param <E> the type of the items
+ */
+public interface Transport<E> {
+
+  /**
+   * Put an item, waiting while the transport is full.
+   *
+   * @param item the item
+   * @throws InterruptedException if the thread is interrupted
+   */
+  void put(E item) throws InterruptedException;
+
+  /**
+   * Take an item, waiting while the transport is empty.
+   *
+   * @return the item
+   * @throws InterruptedException if the thread is interrupted
+   */
+  E take() throws InterruptedException;
+
+  /**
+   * Put an item if there is room, without waiting.
+   *
+   * @param item the item
+   * @return false if the transport is full
+   */
+  boolean offer(E item);
+
+  /**
+   * Take an item if there is one, without waiting.
+   *
+   * @return the item, or null if the transport is empty
+   */
+  E poll();
+
+  /**
+   * Gets the number of items waiting in the transport. Under concurrent use it is an estimate.
+   *
+   * @return the number of items
+   */
+  int size();
+}
@@ -1,74 +1,93 @@
 package writer;
 
 import bucket.ThroughputBucket;
+import bucket.ThroughputStore;
+import pool.Job;
 
-import java.io.BufferedWriter;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.NavigableMap;
 
 /**
  * The type Combined writer that combine the POST and GET results.
  */
 public class CombinedWriter extends CsvFileWriter {
 
-  private ConcurrentSkipListMap<Long, ThroughputBucket> postMap;
-  private ConcurrentSkipListMap<Long, ThroughputBucket> getMap;
+  private ThroughputStore postStore;
+  private ThroughputStore getStore;
 
   /**
    * Instantiates a new Combined writer.
    *
-   * @param fileName the file name
-   * @param postMap the post map
-   * @param getMap the get map
+   * @param postJob the POST job
+   * @param getJob the GET job
    */
-  public CombinedWriter(String fileName, ConcurrentSkipListMap<Long, ThroughputBucket> postMap,
-      ConcurrentSkipListMap<Long, ThroughputBucket> getMap) {
-    super(fileName.replace("POSTraw.csv", "combined.csv"));
-    this.postMap = postMap;
-    this.getMap = getMap;
+  public CombinedWriter(Job postJob, Job getJob) {
+    super(postJob.getFileName().replace("POSTraw.csv", "combined.csv"), postJob, getJob);
+    this.postStore = postJob.getThroughputMap();
+    this.getStore = getJob.getThroughputMap();
   }
 
   /**
-   * Merge files takes in 2 concurrent maps, and merges the columns together.
+   * Merge files takes in 2 throughput stores, and merges the columns together.
    */
   @Override
   public void writeFile() {
-    try {
-      BufferedWriter output = new BufferedWriter(
-          new OutputStreamWriter(new FileOutputStream(getFileName(), false), "UTF-8"));
+    try (CsvRowEncoder output = openEncoder(false)) {
+      NavigableMap<Long, ThroughputBucket> postMap = postStore.getBuckets();
+      NavigableMap<Long, ThroughputBucket> getMap = getStore.getBuckets();
       long totalReq = 0;
       long count = 0;
       long maxThroughput = 0;
-      output.write(String.format("\"POST\",\"\",\"\",\"GET\",\"\",\"\",\"Total\"%n"));
-      output.write(String.format(
-          "\"Second\",\"Count\",\"Latency\"" + ",\"Second\",\"Count\",\"Latency\",\"Count\"%n"));
+      boolean sketched = postStore.hasSketches();
+      output.field("POST").emptyField().emptyField();
+      if (sketched) {
+        writeSketchEmpty(output);
+      }
+      output.field("GET").emptyField().emptyField();
+      if (sketched) {
+        writeSketchEmpty(output);
+      }
+      output.field("Total").endRow();
+      output.field("Second").field("Count").field("Latency");
+      if (sketched) {
+        writeSketchHeader(output);
+      }
+      output.field("Second").field("Count").field("Latency");
+      if (sketched) {
+        writeSketchHeader(output);
+      }
+      output.field("Count").endRow();
       for (Entry<Long, ThroughputBucket> pair : postMap.entrySet()) {
         long key = pair.getKey();
         ThroughputBucket bucket1 = pair.getValue();
         ThroughputBucket bucket2 = getMap.get(key);
         count++;
         if (bucket2 != null) {
-          output.write(String
-              .format("\"%d\",\"%d\",\"%d\",\"%d\",\"%d\",\"%d\",\"%d\"%n", bucket1.getSecond(),
-                  bucket1.getCount(), bucket1.getMeanLatency(), bucket2.getSecond(),
-                  bucket2.getCount(), bucket2.getMeanLatency(),
-                  bucket1.getCount() + bucket2.getCount()));
+          output.field(bucket1.getSecond()).field(bucket1.getCount())
+              .field(bucket1.getMeanLatency());
+          writeSketchColumns(output, bucket1);
+          output.field(bucket2.getSecond()).field(bucket2.getCount())
+              .field(bucket2.getMeanLatency());
+          writeSketchColumns(output, bucket2);
+          output.field(bucket1.getCount() + bucket2.getCount()).endRow();
           totalReq += (bucket1.getCount() + bucket2.getCount());
           maxThroughput = Math.max(maxThroughput, bucket1.getCount() + bucket2.getCount());
         } else {
-          output.write(String
-              .format("\"%d\",\"%d\",\"%d\",\"%s\",\"%s\",\"%s\",\"%d\"%n", bucket1.getSecond(),
-                  bucket1.getCount(), bucket1.getMeanLatency(), "", "", "", bucket1.getCount()));
+          output.field(bucket1.getSecond()).field(bucket1.getCount())
+              .field(bucket1.getMeanLatency());
+          writeSketchColumns(output, bucket1);
+          output.emptyField().emptyField().emptyField();
+          if (sketched) {
+            writeSketchEmpty(output);
+          }
+          output.field(bucket1.getCount()).endRow();
           totalReq += bucket1.getCount();
           maxThroughput = Math.max(maxThroughput, bucket1.getCount());
         }
       }
-      output.write("Overall throughput: " + totalReq / count + "\n");
-      output.write("Peak throughput: " + maxThroughput + "\n");
-      output.close();
+      output.text("Overall throughput: " + totalReq / count + "\n");
+      output.text("Peak throughput: " + maxThroughput + "\n");
       System.out.println("Generate: " + getFileName());
     } catch (IOException ex) {
       System.out.println("ERROR: something went wrong: " + ex.getMessage());
@@ -1,6 +1,12 @@
 package writer;
 
-import pool.ThreadPool;
+import bucket.LatencySketch;
+import bucket.ThroughputBucket;
+import pool.Job;
+import timer.PhaseProfiler;
+import timer.PhaseProfiler.Phase;
+
+import java.io.IOException;
 
 /**
  * The type Csv file writer.
@@ -8,14 +14,17 @@ import pool.ThreadPool;
 public abstract class CsvFileWriter implements Runnable {
 
   private String fileName;
+  private Job[] jobs;
 
   /**
    * Instantiates a new Csv file writer.
    *
    * @param fileName the file name
+   * @param jobs the jobs whose results are written
    */
-  public CsvFileWriter(String fileName) {
+  public CsvFileWriter(String fileName, Job... jobs) {
     this.fileName = fileName;
+    this.jobs = jobs.clone();
   }
 
   /**
@@ -27,21 +36,82 @@ public abstract class CsvFileWriter implements Runnable {
     return fileName;
   }
 
+  /**
+   * Opens a row encoder on the file.
+   *
+   * @param append true to append to the file instead of replacing it
+   * @return the encoder
+   * @throws IOException if the file cannot be opened
+   */
+  CsvRowEncoder openEncoder(boolean append) throws IOException {
+    return new CsvRowEncoder(fileName, append);
+  }
+
+  /**
+   * Helper function that writes the header fields of the per-second percentile columns.
+   *
+   * @param output the encoder
+   * @throws IOException if the file cannot be written
+   */
+  static void writeSketchHeader(CsvRowEncoder output) throws IOException {
+    output.field("P50").field("P99").field("Max");
+  }
+
+  /**
+   * Helper function that writes empty per-second percentile columns.
+   *
+   * @param output the encoder
+   * @throws IOException if the file cannot be written
+   */
+  static void writeSketchEmpty(CsvRowEncoder output) throws IOException {
+    output.emptyField().emptyField().emptyField();
+  }
+
+  /**
+   * Helper function that writes the per-second percentile columns of a bucket, if it has them.
+   *
+   * @param output the encoder
+   * @param bucket the bucket
+   * @throws IOException if the file cannot be written
+   */
+  static void writeSketchColumns(CsvRowEncoder output, ThroughputBucket bucket)
+      throws IOException {
+    LatencySketch sketch = bucket.getSketch();
+    if (sketch != null) {
+      output.field(sketch.getValueAtQuantile(0.5)).field(sketch.getValueAtQuantile(0.99))
+          .field(sketch.getMax());
+    }
+  }
+
   /**
    * Write file.
    */
   abstract void writeFile();
 
   /**
-   * The run method implements the Runnable interface.
+   * The run method implements the Runnable interface. It waits until the consumers of every job
+   * it writes have stopped, and profiles the writing as a phase of the first job's file. Nothing
+   * is written if one of the jobs failed.
    */
   @Override
   public void run() {
     try {
       System.out.println(this + " wait");
-      ThreadPool.getConsumerLatch().await();
+      for (Job job : jobs) {
+        job.getConsumerLatch().await();
+      }
+      for (Job job : jobs) {
+        if (job.getFailure() != null) {
+          System.out.println("ERROR: " + fileName + " is not written, " + job.getFileName()
+              + " failed: " + job.getFailure());
+          return;
+        }
+      }
       System.out.println(this + " is writing file");
+      Phase write = PhaseProfiler.start(jobs[0].getFileName(),
+          "write " + getClass().getSimpleName());
       writeFile();
+      write.end();
       System.out.println(this + " end");
     } catch (InterruptedException ex) {
       System.out.println(ex.getMessage());
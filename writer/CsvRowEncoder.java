@@ -0,0 +1,229 @@
+package writer;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The type Csv row encoder that writes quoted csv fields straight into a large NIO buffer. Numbers
+ * are turned into ASCII digits without a Formatter, boxing or a charset encoder, and the buffer is
+ * written to the file channel only when it is full. Buffers are borrowed from a shared pool when
+ * an encoder opens and given back when it closes, so they are reused whatever thread writes, and
+ * the pool never holds more buffers than encoders were open at once. Rows end with the line
+ * separator like %n does.
+ */
+class CsvRowEncoder implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 20;
+  private static final byte QUOTE = '"';
+  private static final byte COMMA = ',';
+  private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+  private static final byte[] MIN_VALUE = Long.toString(Long.MIN_VALUE)
+      .getBytes(StandardCharsets.UTF_8);
+  private static final Queue<ByteBuffer> BUFFERS = new ConcurrentLinkedQueue<>();
+  private FileOutputStream output;
+  private FileChannel channel;
+  private ByteBuffer buf;
+  private byte[] digits;
+  private boolean rowStart;
+
+  /**
+   * Instantiates a new Csv row encoder.
+   *
+   * @param fileName the file name
+   * @param append true to append to the file instead of replacing it
+   * @throws IOException if the file cannot be opened
+   */
+  CsvRowEncoder(String fileName, boolean append) throws IOException {
+    this.output = new FileOutputStream(fileName, append);
+    this.channel = output.getChannel();
+    ByteBuffer pooled = BUFFERS.poll();
+    this.buf = pooled == null ? ByteBuffer.allocateDirect(BUFFER_SIZE) : pooled;
+    this.buf.clear();
+    this.digits = new byte[20];
+    this.rowStart = true;
+  }
+
+  /**
+   * Writes a quoted number field.
+   *
+   * @param value the number
+   * @return the encoder
+   * @throws IOException if the buffer cannot be flushed
+   */
+  CsvRowEncoder field(long value) throws IOException {
+    separate(22);
+    buf.put(QUOTE);
+    putNumber(value);
+    buf.put(QUOTE);
+    return this;
+  }
+
+  /**
+   * Writes a quoted text field.
+   *
+   * @param value the text
+   * @return the encoder
+   * @throws IOException if the buffer cannot be flushed
+   */
+  CsvRowEncoder field(String value) throws IOException {
+    separate(2);
+    buf.put(QUOTE);
+    text(value);
+    ensure(1);
+    buf.put(QUOTE);
+    return this;
+  }
+
+  /**
+   * Writes an empty quoted field.
+   *
+   * @return the encoder
+   * @throws IOException if the buffer cannot be flushed
+   */
+  CsvRowEncoder emptyField() throws IOException {
+    separate(2);
+    buf.put(QUOTE);
+    buf.put(QUOTE);
+    return this;
+  }
+
+  /**
+   * Ends the row with the line separator.
+   *
+   * @return the encoder
+   * @throws IOException if the buffer cannot be flushed
+   */
+  CsvRowEncoder endRow() throws IOException {
+    ensure(NEWLINE.length);
+    buf.put(NEWLINE);
+    rowStart = true;
+    return this;
+  }
+
+  /**
+   * Writes plain text, such as a summary line.
+   *
+   * @param value the text
+   * @return the encoder
+   * @throws IOException if the buffer cannot be flushed
+   */
+  CsvRowEncoder text(String value) throws IOException {
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      char current = value.charAt(i);
+      if (current >= 0x80) {
+        bytes(value.substring(i).getBytes(StandardCharsets.UTF_8));
+        return this;
+      }
+      ensure(1);
+      buf.put((byte) current);
+    }
+    return this;
+  }
+
+  /**
+   * Flushes the buffer, closes the file and gives the buffer back to the pool.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    if (buf == null) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      try {
+        output.close();
+      } finally {
+        BUFFERS.offer(buf);
+        buf = null;
+      }
+    }
+  }
+
+  /**
+   * Helper function that writes the comma before every field but the first of a row and makes
+   * room for the field.
+   *
+   * @param size the bytes the field needs
+   * @throws IOException if the buffer cannot be flushed
+   */
+  private void separate(int size) throws IOException {
+    ensure(size + 1);
+    if (!rowStart) {
+      buf.put(COMMA);
+    }
+    rowStart = false;
+  }
+
+  /**
+   * Helper function that puts the decimal digits of a number.
+   *
+   * @param value the number
+   */
+  private void putNumber(long value) {
+    if (value == Long.MIN_VALUE) {
+      buf.put(MIN_VALUE);
+      return;
+    }
+    if (value < 0) {
+      buf.put((byte) '-');
+      value = -value;
+    }
+    int position = digits.length;
+    do {
+      digits[--position] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value != 0);
+    buf.put(digits, position, digits.length - position);
+  }
+
+  /**
+   * Helper function that puts an array of any length.
+   *
+   * @param bytes the bytes
+   * @throws IOException if the buffer cannot be flushed
+   */
+  private void bytes(byte[] bytes) throws IOException {
+    int offset = 0;
+    while (offset < bytes.length) {
+      ensure(1);
+      int length = Math.min(buf.remaining(), bytes.length - offset);
+      buf.put(bytes, offset, length);
+      offset += length;
+    }
+  }
+
+  /**
+   * Helper function that flushes the buffer unless it has room for the given bytes.
+   *
+   * @param size the bytes needed
+   * @throws IOException if the buffer cannot be flushed
+   */
+  private void ensure(int size) throws IOException {
+    if (buf.remaining() < size) {
+      flush();
+    }
+  }
+
+  /**
+   * Helper function that writes the buffer to the channel.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  private void flush() throws IOException {
+    buf.flip();
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+    buf.clear();
+  }
+}
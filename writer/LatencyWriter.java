@@ -1,33 +1,33 @@
 package writer;
 
 import bucket.LatencyBucket;
+import bucket.LatencyStore;
 import grapher.LatencyGrapher;
+import pool.Job;
+import pool.ThreadPool;
+import timer.PhaseProfiler;
 
-import java.io.BufferedWriter;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.NavigableMap;
 
 /**
  * The type Latency writer that generates the POST and GET latency results.
  */
 public class LatencyWriter extends CsvFileWriter {
 
-  private ConcurrentSkipListMap<Integer, LatencyBucket> map;
+  private LatencyStore store;
   private String fileName;
 
   /**
    * Instantiates a new Latency writer.
    *
-   * @param fileName the file name
-   * @param map the map
+   * @param job the job whose latency is written
    */
-  public LatencyWriter(String fileName, ConcurrentSkipListMap<Integer, LatencyBucket> map) {
-    super(fileName.replace("raw.csv", "-latency.csv"));
-    this.fileName = fileName;
-    this.map = map;
+  public LatencyWriter(Job job) {
+    super(job.getFileName().replace("raw.csv", "-latency.csv"), job);
+    this.fileName = job.getFileName();
+    this.store = job.getLatencyMap();
   }
 
   /**
@@ -35,15 +35,15 @@ public class LatencyWriter extends CsvFileWriter {
    */
   @Override
   public void writeFile() {
-    try (BufferedWriter output = new BufferedWriter(
-        new OutputStreamWriter(new FileOutputStream(getFileName(), false), "UTF-8"));) {
-      output.write(String.format("\"Latency\",\"Count\"%n"));
+    try (CsvRowEncoder output = openEncoder(false)) {
+      NavigableMap<Integer, LatencyBucket> map = store.getBuckets();
+      output.field("Latency").field("Count").endRow();
       for (Entry<Integer, LatencyBucket> entry : map.entrySet()) {
-        output.write(String.format("\"%d\",\"%d\"%n", entry.getKey(), entry.getValue().getCount()));
+        output.field(entry.getKey()).field(entry.getValue().getCount()).endRow();
       }
       output.close();
-      new LatencyGrapher("Latency Plot", map.values(),
-          fileName.replace("raw.csv", "-latency-plot"));
+      ThreadPool.addRenderTask(PhaseProfiler.profile(fileName, "chart latency",
+          new LatencyGrapher(map.values(), fileName.replace("raw.csv", "-latency-plot"))));
       System.out.println("Generate: " + getFileName());
     } catch (IOException ex) {
       System.out.println("ERROR: something went wrong: " + ex.getMessage());
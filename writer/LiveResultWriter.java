@@ -0,0 +1,101 @@
+package writer;
+
+import bucket.ThroughputBucket;
+import bucket.ThroughputStore;
+import pool.Job;
+
+import java.io.IOException;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The type Live result writer that appends the seconds of a followed file to a live csv file while
+ * the file is still being consumed. A second is only written once it has closed, that is once
+ * requests more than GRACE_SECONDS later have been seen, so every row is written exactly once.
+ */
+public class LiveResultWriter extends CsvFileWriter {
+
+  private static final long FLUSH_MILLIS = 1000;
+  private static final long GRACE_SECONDS = 1;
+  private Job job;
+  private ThroughputStore store;
+  private Long nextSecond;
+  private boolean finished;
+
+  /**
+   * Instantiates a new Live result writer.
+   *
+   * @param job the followed job whose throughput is written
+   */
+  public LiveResultWriter(Job job) {
+    super(job.getFileName().replace("raw.csv", "-live.csv"), job);
+    this.job = job;
+    this.store = job.getThroughputMap();
+  }
+
+  /**
+   * Append the seconds closed since the last call. After the consumers have stopped every
+   * remaining second is written.
+   */
+  @Override
+  public void writeFile() {
+    NavigableMap<Long, ThroughputBucket> map = store.getBuckets();
+    if (map.isEmpty()) {
+      return;
+    }
+    boolean first = nextSecond == null;
+    long from = first ? map.firstKey() : nextSecond;
+    NavigableMap<Long, ThroughputBucket> closed = finished ? map.tailMap(from, true)
+        : map.subMap(from, true, map.lastKey() - GRACE_SECONDS, false);
+    if (closed.isEmpty() && !first) {
+      return;
+    }
+    try (CsvRowEncoder output = openEncoder(!first)) {
+      if (first) {
+        output.field("Second").field("Count").field("Latency");
+        if (store.hasSketches()) {
+          writeSketchHeader(output);
+        }
+        output.endRow();
+      }
+      for (Entry<Long, ThroughputBucket> entry : closed.entrySet()) {
+        output.field(entry.getKey()).field(entry.getValue().getCount())
+            .field(entry.getValue().getMeanLatency());
+        writeSketchColumns(output, entry.getValue());
+        output.endRow();
+        nextSecond = entry.getKey() + 1;
+      }
+      if (nextSecond == null) {
+        nextSecond = from;
+      }
+    } catch (IOException ex) {
+      System.out.println("ERROR: something went wrong: " + ex.getMessage());
+    }
+  }
+
+  /**
+   * The run method implements the Runnable interface. It flushes the closed seconds every
+   * FLUSH_MILLIS until the consumers of the job have stopped, then writes the rest.
+   */
+  @Override
+  public void run() {
+    System.out.println(this + " start");
+    try {
+      while (!job.getConsumerLatch().await(FLUSH_MILLIS, TimeUnit.MILLISECONDS)) {
+        writeFile();
+      }
+      finished = true;
+      writeFile();
+      System.out.println("Generate: " + getFileName());
+    } catch (InterruptedException ex) {
+      System.out.println(ex.getMessage());
+    }
+    System.out.println(this + " end");
+  }
+
+  @Override
+  public String toString() {
+    return "Live Result Writer: " + Thread.currentThread().getName();
+  }
+}
@@ -1,16 +1,17 @@
 package writer;
 
+import bucket.LatencySketch;
 import bucket.ThroughputBucket;
+import bucket.ThroughputStore;
 import grapher.ThroughputGrapher;
+import pool.Job;
+import pool.ThreadPool;
+import timer.PhaseProfiler;
 
-import java.io.BufferedWriter;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
-import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * The type Peak Phase writer that generates peak phase analysis.
@@ -19,22 +20,20 @@ public class PeakPhaseWriter extends CsvFileWriter {
 
   private static final int LOWTH = 5;
   private static final int HIGHTH = 99;
-  private ConcurrentSkipListMap<Long, ThroughputBucket> map;
+  private ThroughputStore store;
   private int threshold;
   private String fileName;
 
   /**
    * Constructor for peak phase writer.
    *
-   * @param fileName target file
-   * @param map data map
+   * @param job the job whose throughput is analyzed
    * @param threshold the threshold to help determine the peak
    */
-  public PeakPhaseWriter(String fileName, ConcurrentSkipListMap<Long, ThroughputBucket> map,
-      int threshold) {
-    super(fileName.replace("raw.csv", "-peak.csv"));
-    this.map = map;
-    this.fileName = fileName;
+  public PeakPhaseWriter(Job job, int threshold) {
+    super(job.getFileName().replace("raw.csv", "-peak.csv"), job);
+    this.store = job.getThroughputMap();
+    this.fileName = job.getFileName();
     this.threshold = threshold;
   }
 
@@ -43,31 +42,40 @@ public class PeakPhaseWriter extends CsvFileWriter {
    */
   @Override
   public void writeFile() {
-    try (BufferedWriter output = new BufferedWriter(
-        new OutputStreamWriter(new FileOutputStream(getFileName(), false), "UTF-8"))) {
-      LinkedList<ThroughputBucket> peakPhase = new LinkedList<>(map.values());
+    try (CsvRowEncoder output = openEncoder(false)) {
+      LinkedList<ThroughputBucket> peakPhase = new LinkedList<>(store.getBuckets().values());
       while (peakPhase.getFirst().getCount() < threshold) {
         peakPhase.removeFirst();
       }
       while (peakPhase.getLast().getCount() < threshold) {
         peakPhase.removeLast();
       }
-      new ThroughputGrapher("Peak Plot", peakPhase, fileName.replace("raw.csv", "-peak-plot"));
+      ThreadPool.addRenderTask(PhaseProfiler.profile(fileName, "chart peak",
+          new ThroughputGrapher(peakPhase, fileName.replace("raw.csv", "-peak-plot"))));
       long totalThroughput = 0;
       long highest = Long.MIN_VALUE;
       long totalResponseTime = 0;
-      output.write(String.format("\"Second\",\"Count\",\"Latency\"%n"));
+      LatencySketch peakSketch = store.hasSketches() ? new LatencySketch() : null;
+      output.field("Second").field("Count").field("Latency");
+      if (peakSketch != null) {
+        writeSketchHeader(output);
+      }
+      output.endRow();
       for (ThroughputBucket bucket : peakPhase) {
         totalThroughput += bucket.getCount();
         totalResponseTime += bucket.getMeanLatency();
         highest = Math.max(bucket.getCount(), highest);
-        output.write(String.format("\"%d\",\"%d\",\"%d\"%n", bucket.getSecond(), bucket.getCount(),
-            bucket.getMeanLatency()));
+        if (peakSketch != null && bucket.getSketch() != null) {
+          peakSketch.merge(bucket.getSketch());
+        }
+        output.field(bucket.getSecond()).field(bucket.getCount()).field(bucket.getMeanLatency());
+        writeSketchColumns(output, bucket);
+        output.endRow();
       }
-      output.write("The duration of the peak phase in seconds: " + (
+      output.text("The duration of the peak phase in seconds: " + (
           peakPhase.get(peakPhase.size() - 1).getSecond() - peakPhase.get(0).getSecond()) + "\n");
-      output.write("The mean throughput:" + totalThroughput / peakPhase.size() + "\n");
-      output.write("The highest interval requests/sec: " + highest + "\n");
+      output.text("The mean throughput:" + totalThroughput / peakPhase.size() + "\n");
+      output.text("The highest interval requests/sec: " + highest + "\n");
       Collections.sort(peakPhase, new Comparator<ThroughputBucket>() {
         @Override
         public int compare(ThroughputBucket bucket1, ThroughputBucket bucket2) {
@@ -75,9 +83,9 @@ public class PeakPhaseWriter extends CsvFileWriter {
         }
       });
       int peakPhasePercentile = peakPhase.size() * LOWTH / 100;
-      output.write(LOWTH + "th percentile value for the peak phase throughput: " + peakPhase
+      output.text(LOWTH + "th percentile value for the peak phase throughput: " + peakPhase
           .get(peakPhasePercentile).getCount() + "\n");
-      output.write("The mean response time: " + totalResponseTime / peakPhase.size() + "\n");
+      output.text("The mean response time: " + totalResponseTime / peakPhase.size() + "\n");
       Collections.sort(peakPhase, new Comparator<ThroughputBucket>() {
         @Override
         public int compare(ThroughputBucket bucket1, ThroughputBucket bucket2) {
@@ -85,8 +93,13 @@ public class PeakPhaseWriter extends CsvFileWriter {
         }
       });
       int responseTimePercentile = peakPhase.size() * HIGHTH / 100;
-      output.write(HIGHTH + "th percentile response time: " + peakPhase.get(responseTimePercentile)
+      output.text(HIGHTH + "th percentile response time: " + peakPhase.get(responseTimePercentile)
           .getMeanLatency() + "\n");
+      if (peakSketch != null) {
+        output.text(HIGHTH + "th percentile request latency: "
+            + peakSketch.getValueAtQuantile(HIGHTH / 100.0) + "\n");
+        output.text("Max request latency: " + peakSketch.getMax() + "\n");
+      }
       output.close();
       System.out.println("Generate: " + getFileName());
     } catch (IOException ex) {
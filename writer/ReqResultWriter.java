@@ -1,38 +1,37 @@
 package writer;
 
+import bucket.LatencyStore;
 import bucket.ThroughputBucket;
+import bucket.ThroughputStore;
 import grapher.ThroughputGrapher;
+import pool.Job;
+import pool.ThreadPool;
+import timer.PhaseProfiler;
 
-import java.io.BufferedWriter;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.NavigableMap;
 
 /**
  * The type Request result writer that generates the POST or GET csv file.
  */
 public class ReqResultWriter extends CsvFileWriter {
 
-  private ConcurrentSkipListMap<Long, ThroughputBucket> map;
-  private static final int NTH = 99;
+  private ThroughputStore store;
+  private LatencyStore latencyStore;
+  private static final String[] PERCENTILES = {"50", "90", "99", "99.9"};
   private String fileName;
 
   /**
    * Instantiates a new Req result writer.
    *
-   * @param fileName the file name
-   * @param map the map
+   * @param job the job whose throughput is written
    */
-  public ReqResultWriter(String fileName, ConcurrentSkipListMap<Long, ThroughputBucket> map) {
-    super(fileName.replace("raw.csv", "-result.csv"));
-    this.fileName = fileName;
-    this.map = map;
+  public ReqResultWriter(Job job) {
+    super(job.getFileName().replace("raw.csv", "-result.csv"), job);
+    this.fileName = job.getFileName();
+    this.store = job.getThroughputMap();
+    this.latencyStore = job.getLatencyMap();
   }
 
   /**
@@ -40,37 +39,38 @@ public class ReqResultWriter extends CsvFileWriter {
    */
   @Override
   public void writeFile() {
-    try (BufferedWriter output = new BufferedWriter(
-        new OutputStreamWriter(new FileOutputStream(getFileName(), false), "UTF-8"));) {
+    try (CsvRowEncoder output = openEncoder(false)) {
+      NavigableMap<Long, ThroughputBucket> map = store.getBuckets();
       long totalLatency = 0;
       long requestCount = 0;
       int bucketCount = 0;
-      output.write(String.format("\"Second\",\"Count\",\"Latency\"%n"));
+      output.field("Second").field("Count").field("Latency");
+      if (store.hasSketches()) {
+        writeSketchHeader(output);
+      }
+      output.endRow();
       for (Entry<Long, ThroughputBucket> entry : map.entrySet()) {
         requestCount += entry.getValue().getCount();
         totalLatency += entry.getValue().getMeanLatency();
         bucketCount++;
-        output.write(String
-            .format("\"%d\",\"%d\",\"%d\"%n", entry.getKey(), entry.getValue().getCount(),
-                entry.getValue().getMeanLatency()));
+        output.field(entry.getKey()).field(entry.getValue().getCount())
+            .field(entry.getValue().getMeanLatency());
+        writeSketchColumns(output, entry.getValue());
+        output.endRow();
+      }
+      output.text("Test length: " + (map.lastKey() - map.firstKey()) + "\n");
+      output.text("Mean latency: " + totalLatency / bucketCount + "\n");
+      for (String percentile : PERCENTILES) {
+        output.text(percentile + "th percentile latency: "
+            + latencyStore.getValueAtPercentile(Double.parseDouble(percentile)) + "\n");
       }
-      output.write("Test length: " + (map.lastKey() - map.firstKey()) + "\n");
-      output.write("Mean latency: " + totalLatency / bucketCount + "\n");
-      List<ThroughputBucket> list = new ArrayList<>(map.values());
-      Collections.sort(list, new Comparator<ThroughputBucket>() {
-        @Override
-        public int compare(ThroughputBucket bucket1, ThroughputBucket bucket2) {
-          return (int) (bucket1.getMeanLatency() - bucket2.getMeanLatency());
-        }
-      });
-      int percentile = map.size() * NTH / 100;
-      output.write(NTH + "th percentile latency: " + list.get(percentile).getMeanLatency() + "\n");
-      output.write("Total throughput: " + requestCount / (map.lastKey() - map.firstKey()) + "\n");
+      output.text("Max latency: " + latencyStore.getMaxValue() + "\n");
+      output.text("Total throughput: " + requestCount / (map.lastKey() - map.firstKey()) + "\n");
       output.close();
       //for the POST-results data only.
       if (fileName.contains("POST")) {
-        new ThroughputGrapher("Throughput Plot", map.values(),
-            fileName.replace("raw.csv", "-throughput-plot"));
+        ThreadPool.addRenderTask(PhaseProfiler.profile(fileName, "chart throughput",
+            new ThroughputGrapher(map.values(), fileName.replace("raw.csv", "-throughput-plot"))));
       }
       System.out.println("Generate: " + getFileName());
     } catch (IOException ex) {